@@ -0,0 +1,46 @@
+$strict();
+$suppress('NO_APIDOC');
+$suppress('NO_SUPER');
+$package('comp.prj');
+
+/**
+ * Class.
+ * @constructor
+ * Constructor.
+ */
+comp.prj.Class = function() {
+};
+
+comp.prj.Class.prototype =
+{
+    /**
+     * @return Number
+     */
+    outer: function() {
+        var value = 123;
+
+        /**
+         * @return Number
+         */
+        function inner() {
+            return value;
+        }
+
+        /**
+         * @return Number
+         */
+        function shadow() {
+            var value = 'text';
+            return value;
+        }
+
+        return value;
+    },
+
+    /**
+     * @return Number
+     */
+    missing: function() {
+        return value;
+    }
+};
@@ -22,6 +22,7 @@ final class AssignmentHandler extends AstHandler
   private AstNode leftNode;
   private AstNode rightNode;
   private String leftName;
+  private NameKind leftKind = new NameKind();
 
   public AssignmentHandler(Context context)
   {
@@ -39,13 +40,22 @@ final class AssignmentHandler extends AstHandler
     this.enclosingFunction = this.context.getEnclosingFunction(this.assignment);
     this.leftNode = this.assignment.getLeft();
     this.leftName = Utils.getName(this.leftNode);
+    this.leftKind.scan(this.leftName);
     this.rightNode = this.assignment.getRight();
 
-    if(Utils.isClassName(this.leftName) && this.rightNode instanceof FunctionNode) {
+    if(this.enclosingFunction == null && isClassMember()) {
+      // class constructor, prototype or static member assigned from global scope
+      this.context.dependencies.declareClass(this.leftKind.getClassName());
+    }
+    if(this.rightNode instanceof PropertyGet) {
+      this.context.dependencies.referenceClass(Utils.getName(this.rightNode));
+    }
+
+    if(this.leftKind.isClass() && this.rightNode instanceof FunctionNode) {
       processClass();
       return;
     }
-    if(Utils.isPrototype(this.leftName)) {
+    if(this.leftKind.isPrototype()) {
       processPrototype();
       return;
     }
@@ -58,7 +68,7 @@ final class AssignmentHandler extends AstHandler
       }
       return;
     }
-    if(Utils.isStaticMemberName(this.leftName)) {
+    if(this.leftKind.isStaticMember()) {
       if(this.rightNode instanceof FunctionNode) {
         processStaticMethodAsLValue();
       }
@@ -69,6 +79,11 @@ final class AssignmentHandler extends AstHandler
     }
   }
 
+  private boolean isClassMember()
+  {
+    return this.leftKind.isClass() || this.leftKind.isPrototype() || this.leftKind.isPrototypeMember() || this.leftKind.isStaticMember();
+  }
+
   private void processClass()
   {
     if(this.context.currentPackage == null) {
@@ -78,12 +93,20 @@ final class AssignmentHandler extends AstHandler
     if(!this.leftName.startsWith(this.context.currentPackage + '.')) {
       this.writer.print(Warn.BAD_CLASS_PACKAGE);
     }
-    String apidoc = this.assignment.getJsDoc();
-    if(apidoc == null) {
+    if(this.context.index != null) {
+      // superclass can be linked from any source file so check only if project index is available
+      this.context.dependencies.lookupClass(this.leftName);
+      if(this.context.index.getSuperClassName(this.leftName) == null) {
+        if(!this.context.symbols.getJsClass(this.leftName).isNative()) {
+          this.writer.print(Warn.NO_SUPER);
+        }
+      }
+    }
+    JsDoc jsDoc = this.context.getJsDoc(this.assignment);
+    if(jsDoc == null) {
       this.writer.print(Warn.NO_APIDOC);
       return;
     }
-    JsDoc jsDoc = new JsDoc(apidoc);
     if(this.rightNode instanceof FunctionNode && !jsDoc.hasConstructor()) {
       this.writer.print(Warn.CTOR_ANNOTATION);
     }
@@ -91,7 +114,7 @@ final class AssignmentHandler extends AstHandler
 
   private void processStaticFieldAsLValue()
   {
-    String staticFieldName = Utils.getStaticMemberName(this.leftName);
+    String staticFieldName = this.leftKind.getMemberName();
     if(this.enclosingFunction == null) {
       if(this.rightNode instanceof NewExpression) {
         this.writer.print(Warn.BAD_RVALUE, "Can't initialize static field using new operator.");
@@ -102,12 +125,11 @@ final class AssignmentHandler extends AstHandler
         return;
       }
       if(!this.enclosingClass.hasStaticField(staticFieldName)) {
-        String apidoc = this.assignment.getJsDoc();
-        if(apidoc == null) {
+        JsDoc jsDoc = this.context.getJsDoc(this.assignment);
+        if(jsDoc == null) {
           this.writer.print(Warn.NO_APIDOC, "Missing type annotation for field declaration.");
           return;
         }
-        JsDoc jsDoc = new JsDoc(apidoc);
         this.enclosingClass.addStaticField(staticFieldName, jsDoc.getTypeType());
       }
       return;
@@ -118,12 +140,12 @@ final class AssignmentHandler extends AstHandler
     }
 
     // if static field belongs to enclosing class it should be already declared
-    if(this.enclosingClass.is(Utils.getStaticMemberClassName(this.leftName))) {
+    if(this.enclosingClass.is(this.leftKind.getClassName())) {
       if(!this.enclosingClass.hasStaticField(staticFieldName)) {
         this.writer.print(Warn.NO_FIELD_DECL);
       }
     }
-    if(Utils.isConstantName(this.leftName)) {
+    if(this.leftKind.isConstant()) {
       this.writer.print(Warn.CONST_ASSIGN);
     }
   }
@@ -166,17 +188,16 @@ final class AssignmentHandler extends AstHandler
     if(this.enclosingFunction.isConstructor()) {
       // instance field declaration is allowed only on constructor and only if not already declared
       // subsequent assignments are considered instance field value updates
-      String apidoc = this.assignment.getJsDoc();
-      if(!this.enclosingClass.hasField(propertyName)) {
-        if(apidoc == null) {
+      JsDoc jsDoc = this.context.getJsDoc(this.assignment);
+      if(!this.enclosingClass.hasDeclaredField(propertyName)) {
+        if(jsDoc == null) {
           this.writer.print(Warn.NO_APIDOC, "Missing type annotation for field declaration.");
           return;
         }
-        JsDoc jsDoc = new JsDoc(apidoc);
         this.enclosingClass.addField(propertyName, jsDoc.getTypeType());
         return;
       }
-      if(apidoc != null) {
+      if(jsDoc != null) {
         this.writer.print(Warn.BAD_APIDOC);
       }
     }
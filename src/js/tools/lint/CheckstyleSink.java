@@ -0,0 +1,62 @@
+package js.tools.lint;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Checkstyle XML report. Diagnostics of a source file are reported together, so file element is opened on first file
+ * diagnostic and closed when diagnostics of another file start, without grouping them in memory.
+ */
+final class CheckstyleSink extends ReportSink
+{
+  /** Id of source file whose element is open, -2 if none. */
+  private int fileId = -2;
+
+  public CheckstyleSink(SourceFiles files, OutputStream stream, boolean closeStream) throws IOException
+  {
+    super(files, stream, closeStream);
+    this.writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<checkstyle version=\"4.3\">\n");
+  }
+
+  @Override
+  protected void write(Diagnostic diagnostic) throws IOException
+  {
+    if(diagnostic.getFileId() != this.fileId) {
+      closeFile();
+      this.fileId = diagnostic.getFileId();
+      this.writer.write("<file name=\"");
+      writeXmlAttribute(this.files.getName(this.fileId));
+      this.writer.write("\">\n");
+    }
+    this.writer.write("<error line=\"");
+    this.writer.write(Integer.toString(diagnostic.getLine()));
+    if(diagnostic.getColumn() > 0) {
+      this.writer.write("\" column=\"");
+      this.writer.write(Integer.toString(diagnostic.getColumn()));
+    }
+    this.writer.write("\" severity=\"warning\" message=\"");
+    writeXmlAttribute(diagnostic.getMessage());
+    if(diagnostic.getWarn() != null) {
+      this.writer.write("\" source=\"");
+      this.writer.write(TOOL_NAME);
+      this.writer.write('.');
+      this.writer.write(diagnostic.getWarn().name());
+    }
+    this.writer.write("\"/>\n");
+  }
+
+  @Override
+  protected void writeFooter() throws IOException
+  {
+    closeFile();
+    this.writer.write("</checkstyle>\n");
+  }
+
+  private void closeFile() throws IOException
+  {
+    if(this.fileId != -2) {
+      this.writer.write("</file>\n");
+      this.fileId = -2;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package js.tools.lint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Class hierarchy index answering subclass queries in constant time. Every registered class gets a sequential id and
+ * an ancestors bit set containing its own id and ids of all its superclasses. When a superclass link changes, as
+ * recorded by <code>$extends</code> pseudo-operator, only ancestors of the relinked class and of its subclasses are
+ * recomputed.
+ * <p>
+ * Every class has also a members version, used to invalidate its cached inherited fields view. A change to class
+ * members or superclass increments version of that class and of its subclasses only, so that unrelated classes keep
+ * their views.
+ */
+final class ClassHierarchy
+{
+  private List<JsClass> classes = new ArrayList<JsClass>();
+  private List<BitSet> ancestors = new ArrayList<BitSet>();
+  private List<List<JsClass>> subClasses = new ArrayList<List<JsClass>>();
+  /** Members version indexed by class id, incremented on every change that can alter class inherited members. */
+  private int[] versions = new int[16];
+
+  /**
+   * Register class to hierarchy, as root class, and return its id.
+   *
+   * @param jsClass class to register.
+   * @return class id.
+   */
+  public int register(JsClass jsClass)
+  {
+    int id = this.classes.size();
+    this.classes.add(jsClass);
+    BitSet bits = new BitSet();
+    bits.set(id);
+    this.ancestors.add(bits);
+    this.subClasses.add(new ArrayList<JsClass>());
+    if(id == this.versions.length) {
+      this.versions = Arrays.copyOf(this.versions, id * 2);
+    }
+    return id;
+  }
+
+  /**
+   * Update index after class superclass change.
+   *
+   * @param jsClass class with superclass changed,
+   * @param oldSuperClass previous superclass, possible null,
+   * @param newSuperClass new superclass, possible null.
+   */
+  public void link(JsClass jsClass, JsClass oldSuperClass, JsClass newSuperClass)
+  {
+    if(oldSuperClass != null) {
+      this.subClasses.get(oldSuperClass.getId()).remove(jsClass);
+    }
+    if(newSuperClass != null) {
+      this.subClasses.get(newSuperClass.getId()).add(jsClass);
+    }
+    update(jsClass, new BitSet());
+  }
+
+  /**
+   * Record a change to class members, e.g. a new field declaration. Only given class and its subclasses see the change.
+   *
+   * @param jsClass class with members changed.
+   */
+  public void touch(JsClass jsClass)
+  {
+    touch(jsClass, new BitSet());
+  }
+
+  /**
+   * Get class members version.
+   *
+   * @param jsClass class to retrieve version for.
+   * @return class members version.
+   */
+  public int getVersion(JsClass jsClass)
+  {
+    return this.versions[jsClass.getId()];
+  }
+
+  /**
+   * Test if a class is the same as or a subclass of another class.
+   *
+   * @param jsClass class to test,
+   * @param superClass expected superclass.
+   * @return true if <code>superClass</code> is <code>jsClass</code> or one of its superclasses.
+   */
+  public boolean isSubClass(JsClass jsClass, JsClass superClass)
+  {
+    return this.ancestors.get(jsClass.getId()).get(superClass.getId());
+  }
+
+  /**
+   * Recompute ancestors for given class and its subclasses. Visited classes are tracked so that a circular hierarchy,
+   * which is a source error, does not loop forever.
+   */
+  private void update(JsClass jsClass, BitSet visited)
+  {
+    int id = jsClass.getId();
+    if(visited.get(id)) return;
+    visited.set(id);
+
+    BitSet bits = this.ancestors.get(id);
+    bits.clear();
+    JsClass superClass = jsClass.getSuperClass();
+    if(superClass != null) {
+      bits.or(this.ancestors.get(superClass.getId()));
+    }
+    bits.set(id);
+    ++this.versions[id];
+
+    for(JsClass subClass : this.subClasses.get(id)) {
+      update(subClass, visited);
+    }
+  }
+
+  private void touch(JsClass jsClass, BitSet visited)
+  {
+    int id = jsClass.getId();
+    if(visited.get(id)) return;
+    visited.set(id);
+    ++this.versions[id];
+
+    for(JsClass subClass : this.subClasses.get(id)) {
+      touch(subClass, visited);
+    }
+  }
+}
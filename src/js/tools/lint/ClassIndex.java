@@ -0,0 +1,42 @@
+package js.tools.lint;
+
+import java.util.Map;
+
+/**
+ * Read only view on project wide class declarations, used by project mode checks for cross file lookups. Implemented by
+ * heap {@link ProjectIndex} and by memory mapped {@link ProjectIndexFile}; both are safe for concurrent reads.
+ */
+interface ClassIndex
+{
+  /**
+   * Test if class is known by index, that is, declared, linked to a superclass or having declared fields.
+   *
+   * @param className class qualified name.
+   * @return true if class is known.
+   */
+  boolean hasClass(String className);
+
+  /**
+   * Test if class constructor is declared by some project source file.
+   *
+   * @param className class qualified name.
+   * @return true if class is declared.
+   */
+  boolean isDeclared(String className);
+
+  /**
+   * Get superclass name of given class.
+   *
+   * @param className class qualified name.
+   * @return superclass name or null if class is not known or has no superclass link.
+   */
+  String getSuperClassName(String className);
+
+  /**
+   * Get instance fields declared by given class constructor, excluding inherited ones.
+   *
+   * @param className class qualified name.
+   * @return field types mapped by field names, in declaration order; empty if class is not known.
+   */
+  Map<String, String> getFields(String className);
+}
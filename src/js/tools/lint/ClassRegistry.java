@@ -0,0 +1,122 @@
+package js.tools.lint;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Project class model shared by all lint sessions of a project scan. Class records are created on first request from
+ * project {@link ClassIndex}, once per class, and published through a concurrent map so that all threads see the same
+ * fully built record; lookups and creation of different classes do not contend on a global lock.
+ * <p>
+ * Superclass link is resolved lazily, on first {@link ClassRecord#getSuperClass()}, and set by compare and swap: the
+ * registry map is never updated from inside another class record creation, which concurrent map does not allow, and
+ * racing threads agree on the same superclass record.
+ */
+final class ClassRegistry
+{
+  private ClassIndex index;
+  private ConcurrentMap<String, ClassRecord> records = new ConcurrentHashMap<String, ClassRecord>();
+  private Function<String, ClassRecord> factory = new Function<String, ClassRecord>()
+  {
+    @Override
+    public ClassRecord apply(String className)
+    {
+      ClassIndex index = ClassRegistry.this.index;
+      if(!index.hasClass(className)) return null;
+      return new ClassRecord(ClassRegistry.this, className, index.isDeclared(className), index.getSuperClassName(className),
+          index.getFields(className));
+    }
+  };
+
+  public ClassRegistry(ClassIndex index)
+  {
+    this.index = index;
+  }
+
+  public ClassIndex getIndex()
+  {
+    return this.index;
+  }
+
+  /**
+   * Get record of the class with given name, creating it on first request.
+   *
+   * @param className class qualified name.
+   * @return class record or null if class is not known by project index.
+   */
+  public ClassRecord forName(String className)
+  {
+    ClassRecord record = this.records.get(className);
+    if(record != null) return record;
+    return this.records.computeIfAbsent(className, this.factory);
+  }
+
+  /**
+   * Immutable class declarations, but superclass link which is set once.
+   */
+  static final class ClassRecord
+  {
+    private ClassRegistry registry;
+    private String name;
+    private boolean declared;
+    private String superClassName;
+    private Map<String, String> fields;
+    private AtomicReference<ClassRecord> superClass = new AtomicReference<ClassRecord>();
+
+    ClassRecord(ClassRegistry registry, String name, boolean declared, String superClassName, Map<String, String> fields)
+    {
+      this.registry = registry;
+      this.name = name;
+      this.declared = declared;
+      this.superClassName = superClassName;
+      this.fields = Collections.unmodifiableMap(new LinkedHashMap<String, String>(fields));
+    }
+
+    public String getName()
+    {
+      return this.name;
+    }
+
+    public boolean isDeclared()
+    {
+      return this.declared;
+    }
+
+    public String getSuperClassName()
+    {
+      return this.superClassName;
+    }
+
+    /**
+     * Get superclass record, linking it on first request.
+     *
+     * @return superclass record or null if class has no superclass or superclass is not known by project index.
+     */
+    public ClassRecord getSuperClass()
+    {
+      ClassRecord superClass = this.superClass.get();
+      if(superClass == null && this.superClassName != null) {
+        superClass = this.registry.forName(this.superClassName);
+        if(superClass != null && !this.superClass.compareAndSet(null, superClass)) {
+          superClass = this.superClass.get();
+        }
+      }
+      return superClass;
+    }
+
+    /**
+     * Get instance fields declared by class constructor, excluding inherited ones.
+     *
+     * @return field types mapped by field names, in declaration order.
+     */
+    public Map<String, String> getFields()
+    {
+      return this.fields;
+    }
+  }
+}
@@ -8,4 +8,23 @@ public class Config
   boolean verbose;
   File sourcepath;
   List<String> excludes;
+  int threads;
+  /** Incremental lint cache file, null if incremental lint is disabled. */
+  File cache;
+  /** Keep running after scan and lint source files as they are saved. */
+  boolean watch;
+  /** Run a project wide declaration pass before checking source files, enabling cross file checks. */
+  boolean project;
+  /** Persistent project index file, used only in project mode; null if project index is rebuilt on every scan. */
+  File index;
+  /** Machine readable report format, null for console warnings. */
+  String format;
+  /** Report file, compressed if it has gzip extension; null for standard output. Used only if format is set. */
+  File report;
+  /** Profile summary file, null if profiling is disabled. */
+  File profile;
+  /** Loopback port lint daemon listens on, 0 if not running as daemon. */
+  int daemonPort;
+  /** Loopback port of lint daemon to send lint request to, 0 if linting locally. */
+  int connectPort;
 }
@@ -0,0 +1,69 @@
+package js.tools.lint;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Sink writing diagnostics as numbered console lines, <code>[count][file:line] message</code>, where file is source
+ * file name. Output is buffered and written on {@link #flush()} or when buffer is full, instead of a console write for
+ * every warning.
+ */
+final class ConsoleSink implements DiagnosticSink
+{
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  private SourceFiles files;
+  private Writer writer;
+  private StringBuilder line = new StringBuilder();
+  private int warnCount;
+
+  public ConsoleSink(SourceFiles files, OutputStream stream)
+  {
+    this.files = files;
+    this.writer = new BufferedWriter(new OutputStreamWriter(stream), BUFFER_SIZE);
+  }
+
+  @Override
+  public void report(Diagnostic diagnostic)
+  {
+    StringBuilder line = this.line;
+    line.setLength(0);
+    line.append('[').append(++this.warnCount).append("][");
+    line.append(this.files.getFileName(diagnostic.getFileId())).append(':').append(diagnostic.getLine()).append("] ");
+    line.append(diagnostic.getMessage()).append(LINE_SEPARATOR);
+    try {
+      this.writer.append(line);
+    }
+    catch(IOException e) {
+      throw new LintException(e);
+    }
+  }
+
+  @Override
+  public void print(String text)
+  {
+    try {
+      this.writer.write(text);
+    }
+    catch(IOException e) {
+      throw new LintException(e);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException
+  {
+    this.writer.flush();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    // console stream is not owned by sink
+    this.writer.flush();
+  }
+}
@@ -1,42 +1,217 @@
 package js.tools.lint;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import js.tools.commons.ast.Names;
 import js.tools.commons.util.Strings;
 
 import org.mozilla.javascript.ast.Assignment;
 import org.mozilla.javascript.ast.AstNode;
+import org.mozilla.javascript.ast.Comment;
 import org.mozilla.javascript.ast.FunctionNode;
 import org.mozilla.javascript.ast.ObjectLiteral;
 import org.mozilla.javascript.ast.ObjectProperty;
+import org.mozilla.javascript.ast.Scope;
+import org.mozilla.javascript.ast.VariableDeclaration;
+import org.mozilla.javascript.ast.VariableInitializer;
 
 final class Context
 {
   Writer writer;
   boolean legacy;
   String currentPackage;
+  SymbolTable symbols = new SymbolTable();
+  Dependencies dependencies = new Dependencies();
+  /** Project wide declarations, null if not in project mode. Not reset between files. */
+  ClassIndex index;
+
+  /** Function scopes on current traversal path, innermost last. */
+  private List<FunctionScope> scopes = new ArrayList<FunctionScope>();
+  /** Variable tables indexed by declaring scope node, that is, function, block or script root. */
+  private Map<Scope, VariableTable> variableTables = new IdentityHashMap<Scope, VariableTable>();
+  /** Parsed apidoc, indexed by comment node, so that every apidoc comment is parsed only once. */
+  private Map<Comment, JsDoc> jsDocs = new IdentityHashMap<Comment, JsDoc>();
+
+  /**
+   * Reset per file state, keeping writer instance. Invoked before every source file so that context can be reused.
+   */
+  public void reset()
+  {
+    this.legacy = false;
+    this.currentPackage = null;
+    this.writer.reset();
+    this.symbols.clear();
+    this.dependencies = new Dependencies();
+    this.symbols.setDependencies(this.dependencies);
+    this.scopes.clear();
+    this.variableTables.clear();
+    this.jsDocs.clear();
+  }
+
+  /**
+   * Push function scope when traversal enters a function node. Scopes of functions already left by traversal are
+   * discarded. Since AST traversal is depth first, function node parent scope is always on stack at this point.
+   *
+   * @param functionNode function node just entered.
+   */
+  public void enterFunction(FunctionNode functionNode)
+  {
+    getScope(functionNode.getEnclosingFunction());
+    this.scopes.add(new FunctionScope(functionNode));
+  }
 
   public JsFunction getEnclosingFunction(AstNode node)
   {
-    FunctionNode enclosingFunction = node.getEnclosingFunction();
-    if(enclosingFunction == null) return null;
+    FunctionScope scope = getScope(node.getEnclosingFunction());
+    if(scope == null) return null;
+    if(!scope.functionResolved) {
+      resolveFunction(scope);
+    }
+    if(scope.function != null && scope.declaredReturnType != null) {
+      // function instance can be shared by functions with the same name, e.g. anonymous ones
+      scope.function.setDeclaredReturnType(scope.declaredReturnType);
+    }
+    return scope.function;
+  }
+
+  public JsClass getEnclosingClass(AstNode node)
+  {
+    FunctionScope scope = getScope(node.getEnclosingFunction());
+    if(scope == null) {
+      // we are in global space
+      if(!(node instanceof Assignment)) return null;
+      Assignment assignment = (Assignment)node;
+      String leftName = Names.getName(assignment.getLeft());
+      int kind = NameKind.classify(leftName);
+      if(NameKind.is(kind, NameKind.STATIC_MEMBER)) {
+        return this.symbols.getJsClass(leftName.substring(0, NameKind.getClassEnd(kind)));
+      }
+      return null;
+    }
+    if(!scope.classResolved) {
+      resolveClass(scope);
+    }
+    return scope.jsClass;
+  }
+
+  /**
+   * Get parsed apidoc attached to given node.
+   *
+   * @param node AST node.
+   * @return node apidoc or null if node has no apidoc comment.
+   */
+  public JsDoc getJsDoc(AstNode node)
+  {
+    Comment comment = node.getJsDocNode();
+    if(comment == null) return null;
+    JsDoc jsDoc = this.jsDocs.get(comment);
+    if(jsDoc == null) {
+      jsDoc = new JsDoc(comment.getValue());
+      this.jsDocs.put(comment, jsDoc);
+    }
+    return jsDoc;
+  }
+
+  /**
+   * Declare variable from given initializer. Variable declared with <code>let</code> belongs to enclosing block
+   * whereas <code>var</code> belongs to enclosing function or to global scope, if declared outside any function.
+   *
+   * @param variableInitializer variable initializer,
+   * @param jsType variable type.
+   */
+  public void addVariable(VariableInitializer variableInitializer, JsType jsType)
+  {
+    Scope scope = null;
+    AstNode parent = variableInitializer.getParent();
+    if(parent instanceof VariableDeclaration && ((VariableDeclaration)parent).isLet()) {
+      scope = variableInitializer.getEnclosingScope();
+    }
+    if(scope == null) {
+      scope = variableInitializer.getEnclosingFunction();
+    }
+    if(scope == null) {
+      scope = variableInitializer.getAstRoot();
+    }
+    getVariableTable(scope).addVariable(Utils.getName(variableInitializer.getTarget()), jsType);
+  }
+
+  /**
+   * Get variable visible from given node. Search starts with the innermost scope with declared variables and continues
+   * outward, so inner declarations shadow outer ones and nested functions see variables of enclosing functions.
+   *
+   * @param node node using variable,
+   * @param name variable name.
+   * @return variable or null if not declared.
+   */
+  public JsVariable getVariable(AstNode node, String name)
+  {
+    for(Scope scope = node.getEnclosingScope(); scope != null; scope = scope.getEnclosingScope()) {
+      VariableTable table = this.variableTables.get(scope);
+      if(table != null) return table.getVariable(name);
+    }
+    return null;
+  }
+
+  /**
+   * Get variable table of given scope node, creating it if missing. Tables of all enclosing scopes are created too, so
+   * that a table is always linked to the table of its direct enclosing scope, regardless of declarations order.
+   */
+  private VariableTable getVariableTable(Scope scope)
+  {
+    VariableTable table = this.variableTables.get(scope);
+    if(table == null) {
+      Scope parentScope = scope.getEnclosingScope();
+      table = new VariableTable(parentScope != null ? getVariableTable(parentScope) : null);
+      this.variableTables.put(scope, table);
+    }
+    return table;
+  }
+
+  /**
+   * Get scope of given function node, discarding from stack scopes of functions already left by traversal. If function
+   * node scope is not on stack creates it; this happens only if function node handler was not invoked.
+   *
+   * @param functionNode function node, null for global scope.
+   * @return function scope or null for global scope.
+   */
+  private FunctionScope getScope(FunctionNode functionNode)
+  {
+    for(int i = this.scopes.size() - 1; i >= 0; --i) {
+      FunctionScope scope = this.scopes.get(i);
+      if(scope.node == functionNode) return scope;
+      this.scopes.remove(i);
+    }
+    if(functionNode == null) return null;
+    FunctionScope scope = new FunctionScope(functionNode);
+    this.scopes.add(scope);
+    return scope;
+  }
+
+  private void resolveFunction(FunctionScope scope)
+  {
+    scope.functionResolved = true;
+    FunctionNode enclosingFunction = scope.node;
     String functionName = enclosingFunction.getName();
-    String apidoc = enclosingFunction.getJsDoc();
+    JsDoc jsDoc = getJsDoc(enclosingFunction);
 
     if(functionName.isEmpty()) {
       AstNode parent = enclosingFunction.getParent();
-      if(parent == null) return null;
+      if(parent == null) return;
       if(parent instanceof Assignment) {
         Assignment assignment = (Assignment)parent;
         functionName = Names.getName(assignment.getLeft());
-        apidoc = assignment.getJsDoc();
+        jsDoc = getJsDoc(assignment);
       }
       else if(parent instanceof ObjectProperty) {
         ObjectProperty property = (ObjectProperty)parent;
         AstNode left = property.getLeft();
         String methodName = Names.getName(left);
-        apidoc = left.getJsDoc();
+        jsDoc = getJsDoc(left);
 
-        node = property.getParent();
+        AstNode node = property.getParent();
         assert node != null;
         ObjectLiteral objectLiteral = (ObjectLiteral)node;
 
@@ -48,32 +223,25 @@ final class Context
         functionName = Strings.concat(className, '.', methodName);
       }
     }
-    JsFunction function = JsFunction.forName(functionName);
-    if(apidoc != null) {
-      function.setApiDoc(apidoc);
+    scope.function = this.symbols.getJsFunction(functionName);
+    if(jsDoc != null) {
+      scope.function.setDeclaredReturnType(JsType.getInstance(jsDoc.getReturnType()));
     }
-    return function;
+    else {
+      scope.function.setDeclaredReturnType(JsType.getInstance(JsType.VOID));
+    }
+    scope.declaredReturnType = scope.function.getDeclaredReturnType();
   }
 
   @SuppressWarnings("unused")
-  public JsClass getEnclosingClass(AstNode node)
+  private void resolveClass(FunctionScope scope)
   {
-    FunctionNode enclosingFunction = node.getEnclosingFunction();
-    if(enclosingFunction == null) {
-      // we are in global space
-      if(!(node instanceof Assignment)) return null;
-      Assignment assignment = (Assignment)node;
-      String leftName = Names.getName(assignment.getLeft());
-      if(Utils.isStaticMemberName(leftName)) {
-        return JsClass.forName(Utils.getStaticMemberClassName(leftName));
-      }
-      return null;
-    }
-
+    scope.classResolved = true;
+    FunctionNode enclosingFunction = scope.node;
     String functionName = enclosingFunction.getName();
     if(functionName.isEmpty()) {
       AstNode parent = enclosingFunction.getParent();
-      if(parent == null) return null;
+      if(parent == null) return;
       if(parent instanceof Assignment) {
         Assignment assignment = (Assignment)parent;
         functionName = Names.getName(assignment.getLeft());
@@ -81,25 +249,40 @@ final class Context
       else if(parent instanceof ObjectProperty) {
         ObjectProperty property = (ObjectProperty)parent;
         parent = property.getParent();
-        if(parent == null) return null;
+        if(parent == null) return;
         ObjectLiteral objectLiteral = (ObjectLiteral)parent;
         parent = objectLiteral.getParent();
-        if(parent == null) return null;
+        if(parent == null) return;
         Assignment assignment = (Assignment)parent;
-        if(assignment == null) return null;
+        if(assignment == null) return;
         functionName = Names.getName(assignment.getLeft());
       }
     }
 
-    if(Utils.isStaticMemberName(functionName)) {
-      functionName = Utils.getStaticMemberClassName(functionName);
+    // static member, prototype and prototype member are all reduced to owning class name
+    int kind = NameKind.classify(functionName);
+    if(NameKind.is(kind, NameKind.STATIC_MEMBER | NameKind.PROTOTYPE | NameKind.PROTOTYPE_MEMBER)) {
+      functionName = functionName.substring(0, NameKind.getClassEnd(kind));
     }
-    else if(Utils.isPrototype(functionName)) {
-      functionName = Utils.getPrototypeClassName(functionName);
-    }
-    else if(Utils.isPrototypeMember(functionName)) {
-      functionName = Utils.getPrototypeMemberClassName(functionName);
+    scope.jsClass = this.symbols.getJsClass(functionName);
+  }
+
+  /**
+   * Function node with its enclosing class and function, resolved on first request and reused for every node from
+   * function body.
+   */
+  private static class FunctionScope
+  {
+    FunctionNode node;
+    boolean functionResolved;
+    JsFunction function;
+    JsType declaredReturnType;
+    boolean classResolved;
+    JsClass jsClass;
+
+    FunctionScope(FunctionNode node)
+    {
+      this.node = node;
     }
-    return JsClass.forName(functionName);
   }
 }
@@ -0,0 +1,92 @@
+package js.tools.lint;
+
+import java.util.List;
+
+import js.tools.commons.ast.AstHandler;
+import js.tools.commons.ast.Names;
+
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.ast.Assignment;
+import org.mozilla.javascript.ast.AstNode;
+import org.mozilla.javascript.ast.Comment;
+import org.mozilla.javascript.ast.FunctionCall;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.PropertyGet;
+
+/**
+ * Collect class declarations for project index: class constructors, <code>$extends</code> superclass links and
+ * instance fields declared by constructors. Handler is bound on both assignments and function calls and does not report
+ * any warning; checks are performed by the second, checking pass.
+ */
+final class DeclarationHandler extends AstHandler
+{
+  private static final String EXTENDS = "$extends";
+
+  private ProjectIndex index;
+  private NameKind leftKind = new NameKind();
+
+  public void setIndex(ProjectIndex index)
+  {
+    this.index = index;
+  }
+
+  @Override
+  public void handle(Node node)
+  {
+    if(node instanceof Assignment) {
+      handleAssignment((Assignment)node);
+    }
+    else if(node instanceof FunctionCall) {
+      handleFunctionCall((FunctionCall)node);
+    }
+  }
+
+  private void handleAssignment(Assignment assignment)
+  {
+    AstNode left = assignment.getLeft();
+    FunctionNode enclosingFunction = assignment.getEnclosingFunction();
+    if(enclosingFunction == null) {
+      String leftName = Utils.getName(left);
+      this.leftKind.scan(leftName);
+      if(this.leftKind.isClass() && assignment.getRight() instanceof FunctionNode) {
+        this.index.declareClass(leftName);
+      }
+      return;
+    }
+
+    if(!Utils.isInstanceMember(left)) return;
+    String className = getFunctionName(enclosingFunction);
+    if(className == null || !Utils.isClassName(className)) return;
+    Comment comment = assignment.getJsDocNode();
+    if(comment == null) return;
+    // the same as checking pass, field is declared by constructor assignment with apidoc
+    String fieldName = Utils.getName(((PropertyGet)left).getProperty());
+    this.index.addField(className, fieldName, new JsDoc(comment.getValue()).getTypeType());
+  }
+
+  private void handleFunctionCall(FunctionCall functionCall)
+  {
+    if(!EXTENDS.equals(Names.getName(functionCall.getTarget()))) return;
+    List<AstNode> arguments = functionCall.getArguments();
+    if(arguments.size() != 2) return;
+    String subClassName = Utils.getName(arguments.get(0));
+    String superClassName = Utils.getName(arguments.get(1));
+    if(Utils.isClassName(subClassName) && Utils.isClassName(superClassName)) {
+      this.index.setSuperClass(subClassName, superClassName);
+    }
+  }
+
+  /**
+   * Get function name, as declared or, for anonymous function, from the assignment it is the right value of.
+   */
+  private static String getFunctionName(FunctionNode functionNode)
+  {
+    String functionName = functionNode.getName();
+    if(!functionName.isEmpty()) return functionName;
+    AstNode parent = functionNode.getParent();
+    if(parent instanceof Assignment) {
+      return Names.getName(((Assignment)parent).getLeft());
+    }
+    return null;
+  }
+}
@@ -0,0 +1,973 @@
+package js.tools.lint;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token level declaration scanner, collecting the same declarations as {@link DeclarationHandler} without building a
+ * Rhino AST. Source file is read in a byte array and tokenized byte by byte; only brackets nesting, function boundaries
+ * and a few token patterns are tracked:
+ * <pre>
+ *    comp.prj.Class = function(...) { ... }   class declaration, if not inside a function
+ *    /** @type Type *&#47; this.field = ...   field declaration, if inside class constructor
+ *    $extends(comp.prj.Class, comp.prj.Super) superclass link
+ * </pre>
+ * Lexer gives up, returning null, whenever it cannot be sure its result is the same as full parser one on a valid
+ * source: regular expression versus division ambiguity, getters and setters, non ASCII characters outside strings and
+ * comments, an apidoc comment that Rhino could attach to a different node, unbalanced brackets and the like. Caller
+ * should fall back to full parsing in that case.
+ * <p>
+ * Lexer does not check syntax: on a source file with syntax errors it may still be sure about its declarations. Since
+ * full parser yields nothing for such a file, parsing fallback takes declarations lexer recognized before giving up, see
+ * {@link #scanPartial(File)}; this way a syntax error file contributes the same declarations whatever path handles it.
+ * <p>
+ * Lexer works on bytes so it is enabled only if platform charset, used by full parser to read sources, is ASCII
+ * compatible.
+ */
+final class DeclarationLexer
+{
+  /** Lexer works on bytes and reads apidoc comments with platform charset, the same as full parser. */
+  private static final Charset CHARSET = Charset.defaultCharset();
+  private static final boolean ENABLED = CHARSET.name().equals("UTF-8") || CHARSET.name().equals("US-ASCII");
+
+  private static final int EOF = 0;
+  /** Identifier or dotted name, possible a keyword. */
+  private static final int NAME = 1;
+  /** Identifier or dotted name following a dot token, e.g. <code>member</code> from <code>call().member</code>. */
+  private static final int MEMBER = 2;
+  private static final int STRING = 3;
+  private static final int NUMBER = 4;
+  private static final int REGEXP = 5;
+  /** Assignment operator, simple or compound. */
+  private static final int ASSIGN = 6;
+  private static final int OPERATOR = 7;
+  private static final int PUNCTUATOR = 8;
+  private static final int DOT = 9;
+
+  private static final int PAREN = 0;
+  private static final int CONTROL_PAREN = 1;
+  private static final int PARAMS_PAREN = 2;
+  private static final int BRACKET = 3;
+  private static final int BRACE = 4;
+  private static final int FUNCTION_BRACE = 5;
+
+  private static final String THIS_PREFIX = "this.";
+  private static final String EXTENDS = "$extends";
+  private static final String[] CONTROL_KEYWORDS = new String[]
+  {
+      "if", "while", "for", "with"
+  };
+  private static final String[] DECLARATION_KEYWORDS = new String[]
+  {
+      "var", "let", "const"
+  };
+  /** Keywords that can be followed by a regular expression literal. */
+  private static final String[] EXPRESSION_KEYWORDS = new String[]
+  {
+      "return", "typeof", "instanceof", "in", "new", "delete", "void", "throw", "case", "do", "else"
+  };
+  /** Keywords that continue an expression; a function followed by them is not the whole right value. */
+  private static final String[] OPERATOR_KEYWORDS = new String[]
+  {
+      "in", "instanceof"
+  };
+
+  private static final byte IDENTIFIER_START = 1;
+  private static final byte IDENTIFIER_PART = 2;
+  /** ASCII characters classes, indexed by unsigned byte value. */
+  private static final byte[] CHARACTER_CLASSES = new byte[256];
+  static {
+    for(int c = 0; c < 128; ++c) {
+      if((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$') {
+        CHARACTER_CLASSES[c] = IDENTIFIER_START | IDENTIFIER_PART;
+      }
+      else if(c >= '0' && c <= '9') {
+        CHARACTER_CLASSES[c] = IDENTIFIER_PART;
+      }
+    }
+  }
+
+  /** Thrown when lexer cannot be sure about declarations; preallocated since it is part of normal flow. */
+  private static final Unsure UNSURE = new Unsure();
+
+  private byte[] source;
+  private int position;
+  private int limit;
+  /** True if current line has tokens, used to recognize HTML comment end that Rhino accepts at line start. */
+  private boolean lineDirty;
+
+  private int count;
+  private int[] types = new int[256];
+  private int[] starts = new int[256];
+  private int[] ends = new int[256];
+
+  /** Last apidoc comment not yet consumed by an assignment or a variable declaration, start offset or -1. */
+  private int docStart = -1;
+  private int docEnd;
+  /** Index of the token that follows last apidoc comment. */
+  private int docToken;
+
+  private int depth;
+  private int[] frames = new int[64];
+  private int[] frameTokens = new int[64];
+  /** Semicolons count inside frame, used to check <code>for</code> statement header. */
+  private int[] frameSemicolons = new int[64];
+  private Function[] frameFunctions = new Function[64];
+  private int functionDepth;
+  /** Function whose parameters were just closed, waiting for its body. */
+  private Function pendingFunction;
+  /** Function whose body was just closed, waiting for the next token to confirm it is a whole right value. */
+  private Function closedFunction;
+  /** True if last token closes a control statement condition, after which slash starts a regular expression. */
+  private boolean closedControl;
+
+  private ProjectIndex index = new ProjectIndex();
+
+  private DeclarationLexer(byte[] source, int length)
+  {
+    this.source = source;
+    this.limit = length;
+  }
+
+  /**
+   * Collect declarations from source file.
+   *
+   * @param jsFile source file.
+   * @return source file declarations or null if lexer is not sure about them.
+   * @throws IOException if source file reading fails.
+   */
+  public static ProjectIndex scan(File jsFile) throws IOException
+  {
+    if(!ENABLED) return null;
+    byte[] source = Files.readAllBytes(jsFile.toPath());
+    return scan(source, source.length);
+  }
+
+  /**
+   * Collect declarations from a source file with syntax errors, that full parser rejects. Returns declarations lexer
+   * recognized up to the point it gives up, if it does; for a source file lexer is sure about, result is the same as
+   * {@link #scan(File)} one. Returns an empty index if lexer is not enabled.
+   *
+   * @param jsFile source file.
+   * @return declarations recognized by lexer, never null.
+   * @throws IOException if source file reading fails.
+   */
+  public static ProjectIndex scanPartial(File jsFile) throws IOException
+  {
+    if(!ENABLED) return new ProjectIndex();
+    byte[] source = Files.readAllBytes(jsFile.toPath());
+    DeclarationLexer lexer = new DeclarationLexer(source, source.length);
+    try {
+      return lexer.scan();
+    }
+    catch(Unsure unsure) {
+      return lexer.index;
+    }
+  }
+
+  /**
+   * Collect declarations from source bytes.
+   *
+   * @param source source bytes buffer,
+   * @param length source length, from buffer start.
+   * @return source declarations or null if lexer is not sure about them.
+   */
+  public static ProjectIndex scan(byte[] source, int length)
+  {
+    try {
+      return new DeclarationLexer(source, length).scan();
+    }
+    catch(Unsure unsure) {
+      return null;
+    }
+  }
+
+  private ProjectIndex scan()
+  {
+    skipByteOrderMark();
+    for(;;) {
+      int i = next();
+      int type = this.types[i];
+      if(this.closedFunction != null) {
+        checkRightValue(i);
+      }
+      if(this.pendingFunction != null) {
+        if(!isPunctuator(i, '{')) throw UNSURE;
+        push(FUNCTION_BRACE, i, this.pendingFunction);
+        ++this.functionDepth;
+        this.pendingFunction = null;
+        continue;
+      }
+
+      switch(type) {
+      case EOF:
+        if(this.depth != 0) throw UNSURE;
+        return this.index;
+
+      case NAME:
+        if(is(i, "function")) {
+          function(i);
+        }
+        else if(isAny(i, DECLARATION_KEYWORDS)) {
+          this.docStart = -1;
+        }
+        break;
+
+      case ASSIGN:
+        assignment(i);
+        // every assignment consumes pending apidoc, as Rhino parser does
+        this.docStart = -1;
+        break;
+
+      case PUNCTUATOR:
+        punctuator(i);
+        break;
+      }
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // declarations
+
+  /**
+   * Function keyword: record function name and whether it is the right value of an assignment, then expect parameters.
+   */
+  private void function(int i)
+  {
+    Function function = new Function();
+    if(i > 0 && this.types[i - 1] == ASSIGN) {
+      if(i < 2 || this.types[i - 2] != NAME) {
+        // left value is not a plain name, e.g. array element or parenthesized expression
+        throw UNSURE;
+      }
+      function.assignedName = text(i - 2);
+      if(this.functionDepth == 0 && Utils.isClassName(function.assignedName)) {
+        function.declaredClass = function.assignedName;
+      }
+    }
+
+    int j = next();
+    if(this.types[j] == NAME) {
+      function.ownName = text(j);
+      j = next();
+    }
+    if(!isPunctuator(j, '(')) throw UNSURE;
+    push(PARAMS_PAREN, j, function);
+  }
+
+  /**
+   * Assignment operator: collect field declared by constructor, with type from apidoc comment attached to assignment.
+   */
+  private void assignment(int i)
+  {
+    int left = i - 1;
+    if(left < 0 || this.types[left] != NAME || !startsWith(left, THIS_PREFIX)) return;
+    String leftName = text(left);
+    if(!leftName.startsWith(THIS_PREFIX) || leftName.indexOf('.', THIS_PREFIX.length()) != -1) return;
+
+    Function function = getEnclosingFunction();
+    if(function == null) return;
+    String className = function.ownName != null ? function.ownName : function.assignedName;
+    if(className == null || !Utils.isClassName(className)) return;
+    if(this.docStart == -1) return;
+    if(this.docToken != left) {
+      // apidoc is separated from assignment; Rhino could have attached it to some node in between
+      throw UNSURE;
+    }
+
+    String jsDoc = decode(this.docStart, this.docEnd);
+    function.addField(leftName.substring(THIS_PREFIX.length()), new JsDoc(jsDoc).getTypeType());
+  }
+
+  /**
+   * Test if token following a closed function allows it to be the whole right value of its assignment. Function
+   * declarations are committed to index only after this test passes.
+   */
+  private void checkRightValue(int i)
+  {
+    Function function = this.closedFunction;
+    this.closedFunction = null;
+    switch(this.types[i]) {
+    case EOF:
+    case STRING:
+    case NUMBER:
+      break;
+
+    case NAME:
+      if(isAny(i, OPERATOR_KEYWORDS)) throw UNSURE;
+      break;
+
+    case PUNCTUATOR:
+      byte c = this.source[this.starts[i]];
+      if(c != ';' && c != '}' && c != ')' && c != ']' && c != ',' && c != ':') throw UNSURE;
+      break;
+
+    default:
+      throw UNSURE;
+    }
+    function.commit(this.index);
+  }
+
+  /**
+   * Superclass link from <code>$extends</code> pseudo-operator, tested when call parentheses are closed.
+   *
+   * @param open index of open parenthesis token,
+   * @param close index of close parenthesis token.
+   */
+  private void extendsCall(int open, int close)
+  {
+    if(close != open + 4 || this.types[open + 1] != NAME || !isPunctuator(open + 2, ',') || this.types[open + 3] != NAME) {
+      throw UNSURE;
+    }
+    String subClassName = text(open + 1);
+    String superClassName = text(open + 3);
+    if(Utils.isClassName(subClassName) && Utils.isClassName(superClassName)) {
+      this.index.setSuperClass(subClassName, superClassName);
+    }
+  }
+
+  private void punctuator(int i)
+  {
+    switch(this.source[this.starts[i]]) {
+    case '(':
+      if(i > 1 && this.types[i - 1] == NAME && (is(i - 2, "get") || is(i - 2, "set"))) {
+        // object literal getter or setter is a function without function keyword
+        throw UNSURE;
+      }
+      push(i > 0 && isAny(i - 1, CONTROL_KEYWORDS) ? CONTROL_PAREN : PAREN, i, null);
+      break;
+
+    case ')':
+      if(this.depth == 0) throw UNSURE;
+      int open = this.frameTokens[this.depth - 1];
+      Function function = this.frameFunctions[this.depth - 1];
+      int semicolons = this.frameSemicolons[this.depth - 1];
+      int frame = pop(PAREN, PARAMS_PAREN);
+      if(frame == CONTROL_PAREN) {
+        if(semicolons != 0 && semicolons != 2) throw UNSURE;
+        this.closedControl = true;
+      }
+      else if(frame == PARAMS_PAREN) {
+        this.pendingFunction = function;
+      }
+      else if(open > 0 && this.types[open - 1] == NAME && is(open - 1, EXTENDS)) {
+        extendsCall(open, i);
+      }
+      break;
+
+    case ';':
+      if(this.depth == 0 || this.frames[this.depth - 1] >= BRACE) break;
+      // semicolon inside brackets is valid only in a for statement header, otherwise it is a syntax error
+      open = this.frameTokens[this.depth - 1];
+      if(this.frames[this.depth - 1] != CONTROL_PAREN || !is(open - 1, "for")) throw UNSURE;
+      ++this.frameSemicolons[this.depth - 1];
+      break;
+
+    case '[':
+      push(BRACKET, i, null);
+      break;
+
+    case ']':
+      pop(BRACKET, BRACKET);
+      break;
+
+    case '{':
+      push(BRACE, i, null);
+      break;
+
+    case '}':
+      if(this.depth == 0) throw UNSURE;
+      function = this.frameFunctions[this.depth - 1];
+      if(pop(BRACE, FUNCTION_BRACE) == FUNCTION_BRACE) {
+        --this.functionDepth;
+        // Rhino resets apidoc at function body end
+        this.docStart = -1;
+        if(function.isAssignmentDependent()) {
+          this.closedFunction = function;
+        }
+        else {
+          function.commit(this.index);
+        }
+      }
+      break;
+    }
+  }
+
+  private Function getEnclosingFunction()
+  {
+    for(int i = this.depth - 1; i >= 0; --i) {
+      if(this.frames[i] == FUNCTION_BRACE) {
+        return this.frameFunctions[i];
+      }
+    }
+    return null;
+  }
+
+  private void push(int frame, int token, Function function)
+  {
+    if(this.depth == this.frames.length) {
+      this.frames = grow(this.frames);
+      this.frameTokens = grow(this.frameTokens);
+      this.frameSemicolons = grow(this.frameSemicolons);
+      Function[] functions = new Function[this.depth * 2];
+      System.arraycopy(this.frameFunctions, 0, functions, 0, this.depth);
+      this.frameFunctions = functions;
+    }
+    this.frames[this.depth] = frame;
+    this.frameTokens[this.depth] = token;
+    this.frameSemicolons[this.depth] = 0;
+    this.frameFunctions[this.depth] = function;
+    ++this.depth;
+  }
+
+  /**
+   * Pop frame of a kind in given range, that is, matching the closing bracket.
+   */
+  private int pop(int minFrame, int maxFrame)
+  {
+    if(this.depth == 0) throw UNSURE;
+    int frame = this.frames[--this.depth];
+    if(frame < minFrame || frame > maxFrame) throw UNSURE;
+    this.frameFunctions[this.depth] = null;
+    return frame;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // tokenizer
+
+  /**
+   * Read next token and append it to tokens list.
+   *
+   * @return token index.
+   */
+  private int next()
+  {
+    boolean closedControl = this.closedControl;
+    this.closedControl = false;
+    if(this.count == this.types.length) {
+      this.types = grow(this.types);
+      this.starts = grow(this.starts);
+      this.ends = grow(this.ends);
+    }
+    int i = this.count;
+    this.types[i] = nextToken(closedControl);
+    this.ends[i] = this.position;
+    ++this.count;
+    this.lineDirty = true;
+    return i;
+  }
+
+  private int nextToken(boolean closedControl)
+  {
+    skipWhitespaceAndComments();
+    int start = this.position;
+    this.starts[this.count] = start;
+    if(start == this.limit) return EOF;
+
+    int c = this.source[this.position++] & 0xFF;
+    if(isIdentifierStart(c)) {
+      return name();
+    }
+    if(isDigit(c) || (c == '.' && isDigit(peek(0)))) {
+      number();
+      return NUMBER;
+    }
+
+    switch(c) {
+    case '"':
+    case '\'':
+      string(c);
+      return STRING;
+
+    case '.':
+      if(this.count > 0 && this.types[this.count - 1] == NAME) {
+        // dot is not joined to preceding name, e.g. because of a comment in between
+        throw UNSURE;
+      }
+      return DOT;
+
+    case '(':
+    case ')':
+    case '[':
+    case ']':
+    case '{':
+    case '}':
+    case ';':
+    case ',':
+    case ':':
+    case '?':
+    case '~':
+      return PUNCTUATOR;
+
+    case '/':
+      if(isRegexpAllowed(closedControl)) {
+        regexp();
+        return REGEXP;
+      }
+      return operator('/');
+
+    case '<':
+      if(peek(0) == '!' && peek(1) == '-' && peek(2) == '-') throw UNSURE;
+      if(isRegexpAllowed(closedControl)) {
+        // XML literal
+        throw UNSURE;
+      }
+      return operator('<');
+
+    case '-':
+      if(!this.lineDirty && peek(0) == '-' && peek(1) == '>') throw UNSURE;
+      return operator('-');
+
+    case '=':
+    case '!':
+    case '>':
+    case '+':
+    case '*':
+    case '%':
+    case '&':
+    case '|':
+    case '^':
+      return operator(c);
+    }
+    throw UNSURE;
+  }
+
+  /**
+   * Read identifier and join following dot separated identifiers into a dotted name, allowing whitespace around dots.
+   */
+  private int name()
+  {
+    // hot path, kept on locals; identifier start is already consumed
+    byte[] source = this.source;
+    int limit = this.limit;
+    int position = skipIdentifier(this.position);
+    for(;;) {
+      int end = position;
+      while(position < limit && isWhitespace(source[position])) {
+        ++position;
+      }
+      if(position == limit || source[position] != '.') {
+        position = end;
+        break;
+      }
+      ++position;
+      while(position < limit && isWhitespace(source[position])) {
+        ++position;
+      }
+      if(position == limit || !isIdentifierStart(source[position] & 0xFF)) {
+        position = end;
+        break;
+      }
+      position = skipIdentifier(position + 1);
+    }
+    this.position = position;
+    return this.count > 0 && this.types[this.count - 1] == DOT ? MEMBER : NAME;
+  }
+
+  /**
+   * Skip identifier parts starting from given position and return identifier end.
+   */
+  private int skipIdentifier(int position)
+  {
+    byte[] source = this.source;
+    for(; position < this.limit; ++position) {
+      int c = source[position] & 0xFF;
+      if(!isIdentifierPart(c)) {
+        if(c == '\\' || c >= 0x80) {
+          // unicode escape or non ASCII identifier
+          throw UNSURE;
+        }
+        break;
+      }
+    }
+    return position;
+  }
+
+  private void number()
+  {
+    while(this.position < this.limit) {
+      int c = this.source[this.position] & 0xFF;
+      if(isIdentifierPart(c) || c == '.') {
+        ++this.position;
+        continue;
+      }
+      int previous = this.source[this.position - 1];
+      if((c == '+' || c == '-') && (previous == 'e' || previous == 'E')) {
+        ++this.position;
+        continue;
+      }
+      break;
+    }
+  }
+
+  private void string(int quote)
+  {
+    while(this.position < this.limit) {
+      int c = this.source[this.position++] & 0xFF;
+      if(c == quote) return;
+      if(c == '\\') {
+        if(this.position == this.limit) break;
+        if(this.source[this.position++] == '\r' && peek(0) == '\n') {
+          ++this.position;
+        }
+        continue;
+      }
+      if(c == '\n' || c == '\r') break;
+    }
+    throw UNSURE;
+  }
+
+  private void regexp()
+  {
+    boolean inClass = false;
+    while(this.position < this.limit) {
+      int c = this.source[this.position++] & 0xFF;
+      if(c == '\n' || c == '\r') break;
+      if(c == '\\') {
+        ++this.position;
+        continue;
+      }
+      if(c == '[') {
+        inClass = true;
+      }
+      else if(c == ']') {
+        inClass = false;
+      }
+      else if(c == '/' && !inClass) {
+        while(this.position < this.limit && isIdentifierPart(this.source[this.position] & 0xFF)) {
+          ++this.position;
+        }
+        return;
+      }
+    }
+    throw UNSURE;
+  }
+
+  /**
+   * Read operator starting with given character, already consumed, and return its token type, that is, assignment or
+   * other operator.
+   */
+  private int operator(int c)
+  {
+    int next = peek(0);
+    switch(c) {
+    case '=':
+    case '!':
+      if(next != '=') return c == '=' ? ASSIGN : OPERATOR;
+      ++this.position;
+      if(peek(0) == '=') {
+        ++this.position;
+      }
+      return OPERATOR;
+
+    case '<':
+    case '>':
+      int length = 1;
+      while(length < (c == '<' ? 2 : 3) && peek(0) == c) {
+        ++this.position;
+        ++length;
+      }
+      if(peek(0) == '=') {
+        ++this.position;
+        return length > 1 ? ASSIGN : OPERATOR;
+      }
+      return OPERATOR;
+
+    case '+':
+    case '-':
+    case '&':
+    case '|':
+      if(next == c) {
+        ++this.position;
+        return OPERATOR;
+      }
+      if(next == '=') {
+        ++this.position;
+        return ASSIGN;
+      }
+      return OPERATOR;
+
+    default:
+      if(next == '=') {
+        ++this.position;
+        return ASSIGN;
+      }
+      return OPERATOR;
+    }
+  }
+
+  /**
+   * Slash starts a regular expression if previous token cannot end an expression.
+   */
+  private boolean isRegexpAllowed(boolean closedControl)
+  {
+    if(this.count == 0) return true;
+    int i = this.count - 1;
+    switch(this.types[i]) {
+    case NAME:
+      return isAny(i, EXPRESSION_KEYWORDS);
+
+    case MEMBER:
+    case STRING:
+    case NUMBER:
+    case REGEXP:
+      return false;
+
+    case PUNCTUATOR:
+      byte c = this.source[this.starts[i]];
+      if(c == ')') return closedControl;
+      if(c == ']') return false;
+      if(c == '}') {
+        // block end or object literal end
+        throw UNSURE;
+      }
+      return true;
+
+    default:
+      return true;
+    }
+  }
+
+  private void skipWhitespaceAndComments()
+  {
+    for(;;) {
+      skipWhitespace();
+      if(peek(0) != '/') return;
+      int next = peek(1);
+      if(next == '/') {
+        skipLineComment();
+      }
+      else if(next == '*') {
+        skipBlockComment();
+      }
+      else {
+        return;
+      }
+    }
+  }
+
+  private void skipWhitespace()
+  {
+    // hot loop, kept on locals
+    byte[] source = this.source;
+    int position = this.position;
+    boolean newLine = false;
+    for(; position < this.limit; ++position) {
+      int c = source[position];
+      if(c == '\n' || c == '\r') {
+        newLine = true;
+      }
+      else if(c != ' ' && c != '\t' && c != 0x0B && c != 0x0C) {
+        break;
+      }
+    }
+    this.position = position;
+    if(newLine) {
+      this.lineDirty = false;
+    }
+  }
+
+  private void skipLineComment()
+  {
+    byte[] source = this.source;
+    int position = this.position;
+    for(; position < this.limit; ++position) {
+      int c = source[position] & 0xFF;
+      if(c == '\n' || c == '\r') break;
+      if(c == 0xE2) {
+        this.position = position;
+        if(peek(1) == 0x80 && (peek(2) == 0xA8 || peek(2) == 0xA9)) {
+          // UTF-8 encoded line or paragraph separator ends comment for Rhino
+          throw UNSURE;
+        }
+      }
+    }
+    this.position = position;
+  }
+
+  private void skipBlockComment()
+  {
+    byte[] source = this.source;
+    int start = this.position;
+    int position = start + 2;
+    boolean doc = position < this.limit && source[position] == '*';
+    for(; position < this.limit - 1; ++position) {
+      int c = source[position];
+      if(c == '\n' || c == '\r') {
+        this.lineDirty = false;
+      }
+      else if(c == '*' && source[position + 1] == '/') {
+        this.position = position + 2;
+        if(doc) {
+          this.docStart = start;
+          this.docEnd = this.position;
+          this.docToken = this.count;
+        }
+        return;
+      }
+    }
+    throw UNSURE;
+  }
+
+  private void skipByteOrderMark()
+  {
+    if(peek(0) == 0xEF && peek(1) == 0xBB && peek(2) == 0xBF) {
+      this.position += 3;
+    }
+  }
+
+  /**
+   * Get byte at given offset from current position, as unsigned value, or -1 if past buffer end.
+   */
+  private int peek(int offset)
+  {
+    int position = this.position + offset;
+    return position < this.limit ? this.source[position] & 0xFF : -1;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // token helpers
+
+  private boolean isPunctuator(int i, char c)
+  {
+    return this.types[i] == PUNCTUATOR && this.source[this.starts[i]] == c;
+  }
+
+  /**
+   * Test if name token is the given word, compared byte by byte to avoid string creation.
+   */
+  private boolean is(int i, String word)
+  {
+    if(this.types[i] != NAME) return false;
+    int start = this.starts[i];
+    if(this.ends[i] - start != word.length()) return false;
+    for(int j = 0; j < word.length(); ++j) {
+      if(this.source[start + j] != word.charAt(j)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Test if name token starts with given prefix, ignoring whitespace around dots.
+   */
+  private boolean startsWith(int i, String prefix)
+  {
+    int j = this.starts[i];
+    for(int k = 0; k < prefix.length(); ++j) {
+      if(j == this.ends[i]) return false;
+      if(this.source[j] <= ' ') continue;
+      if(this.source[j] != prefix.charAt(k++)) return false;
+    }
+    return true;
+  }
+
+  private boolean isAny(int i, String[] words)
+  {
+    for(String word : words) {
+      if(is(i, word)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Get name token text with whitespace around dots removed.
+   */
+  private String text(int i)
+  {
+    StringBuilder builder = new StringBuilder(this.ends[i] - this.starts[i]);
+    for(int j = this.starts[i]; j < this.ends[i]; ++j) {
+      int c = this.source[j];
+      if(c > ' ') {
+        builder.append((char)c);
+      }
+    }
+    return builder.toString();
+  }
+
+  private String decode(int start, int end)
+  {
+    return new String(this.source, start, end - start, CHARSET);
+  }
+
+  private static boolean isIdentifierStart(int c)
+  {
+    return (CHARACTER_CLASSES[c] & IDENTIFIER_START) != 0;
+  }
+
+  private static boolean isIdentifierPart(int c)
+  {
+    return (CHARACTER_CLASSES[c] & IDENTIFIER_PART) != 0;
+  }
+
+  /**
+   * Test for whitespace, line terminators included.
+   */
+  private static boolean isWhitespace(int c)
+  {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == 0x0B || c == 0x0C;
+  }
+
+  private static boolean isDigit(int c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+  private static int[] grow(int[] array)
+  {
+    int[] newArray = new int[array.length * 2];
+    System.arraycopy(array, 0, newArray, 0, array.length);
+    return newArray;
+  }
+
+  /**
+   * Function found by lexer with declarations collected from its body, committed to index when function is closed.
+   */
+  private static class Function
+  {
+    String ownName;
+    /** Left value name if function is assigned. */
+    String assignedName;
+    /** Class declared by function, if it is a class constructor assigned from global scope. */
+    String declaredClass;
+    List<String> fields = new ArrayList<String>();
+
+    void addField(String name, String type)
+    {
+      this.fields.add(name);
+      this.fields.add(type);
+    }
+
+    /**
+     * Test if function declarations depend on function being the right value of its assignment.
+     */
+    boolean isAssignmentDependent()
+    {
+      return this.declaredClass != null || (this.ownName == null && !this.fields.isEmpty());
+    }
+
+    void commit(ProjectIndex index)
+    {
+      if(this.declaredClass != null) {
+        index.declareClass(this.declaredClass);
+      }
+      String className = this.ownName != null ? this.ownName : this.assignedName;
+      for(int i = 0; i < this.fields.size(); i += 2) {
+        index.addField(className, this.fields.get(i), this.fields.get(i + 1));
+      }
+    }
+  }
+
+  private static class Unsure extends RuntimeException
+  {
+    private static final long serialVersionUID = 1L;
+
+    Unsure()
+    {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package js.tools.lint;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import js.tools.commons.ast.Scanner;
+
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.ast.Assignment;
+import org.mozilla.javascript.ast.FunctionCall;
+
+/**
+ * Declaration pass of project mode, collecting classes declared by a source file into a file index. Most files are
+ * processed by the token level {@link DeclarationLexer}; full parsing is used only for files lexer is not sure about.
+ * Parser scanner binds only {@link DeclarationHandler} and logs to a discarded log. Like {@link LintSession} it is
+ * reusable but not thread safe.
+ */
+final class DeclarationScanner
+{
+  private Scanner scanner;
+  private DeclarationHandler handler;
+
+  public DeclarationScanner()
+  {
+    this.scanner = new Scanner(new RecordingLog());
+    this.handler = new DeclarationHandler();
+    this.scanner.bind(Assignment.class, this.handler);
+    this.scanner.bind(FunctionCall.class, this.handler);
+  }
+
+  /**
+   * Collect classes declared by source file, using {@link DeclarationLexer} and falling back to full parsing if lexer
+   * is not sure about its result.
+   *
+   * @param jsFile source file.
+   * @return source file declarations.
+   * @throws IOException if source file reading fails.
+   */
+  public ProjectIndex scan(File jsFile) throws IOException
+  {
+    ProjectIndex index = DeclarationLexer.scan(jsFile);
+    return index != null ? index : parse(jsFile);
+  }
+
+  /**
+   * Collect classes declared by source file using full parser. Source file with syntax errors yields declarations
+   * recognized by {@link DeclarationLexer#scanPartial(File)}, the same lexer path finds on it when sure; syntax error
+   * itself is reported by checking pass.
+   *
+   * @param jsFile source file.
+   * @return source file declarations.
+   * @throws IOException if source file reading fails.
+   */
+  public ProjectIndex parse(File jsFile) throws IOException
+  {
+    ProjectIndex index = new ProjectIndex();
+    this.handler.setIndex(index);
+    Reader reader = new FileReader(jsFile);
+    try {
+      this.scanner.parse(reader, jsFile.getName());
+    }
+    catch(RhinoException e) {
+      return DeclarationLexer.scanPartial(jsFile);
+    }
+    finally {
+      reader.close();
+    }
+    return index;
+  }
+}
@@ -0,0 +1,118 @@
+package js.tools.lint;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Classes declared and referenced by a source file. A class is declared by a file if file assigns its constructor,
+ * prototype or static members from global scope, or links it to a superclass by <code>$extends</code> pseudo-operator;
+ * it is referenced if used as superclass by <code>$extends</code>, instantiated or if its static members are used. In
+ * project mode classes looked up on project index are recorded too, declared by current file or not, since their index
+ * records come from other files. Incremental lint uses declared, referenced and looked up classes to find files
+ * depending on changed ones.
+ */
+final class Dependencies
+{
+  private Set<String> declaredClasses = new HashSet<String>();
+  private Set<String> referencedClasses = new HashSet<String>();
+  private Set<String> indexedClasses = new HashSet<String>();
+
+  public void declareClass(String className)
+  {
+    this.declaredClasses.add(className);
+  }
+
+  /**
+   * Record reference to a class or to a class static member. Names that are neither class names nor static member
+   * names are ignored.
+   *
+   * @param name qualified name, possible null.
+   */
+  public void referenceClass(String name)
+  {
+    if(name == null) return;
+    int kind = NameKind.classify(name);
+    // test static member first since a name like comp.prj.Class.CONSTANT is both
+    if(NameKind.is(kind, NameKind.STATIC_MEMBER)) {
+      this.referencedClasses.add(name.substring(0, NameKind.getClassEnd(kind)));
+    }
+    else if(NameKind.is(kind, NameKind.CLASS)) {
+      this.referencedClasses.add(name);
+    }
+  }
+
+  /**
+   * Record a project index lookup of given class, whatever lookup result, since a class missing from index is as well
+   * affected by a later declaration.
+   *
+   * @param className class qualified name.
+   */
+  public void lookupClass(String className)
+  {
+    this.indexedClasses.add(className);
+  }
+
+  public Set<String> getDeclaredClasses()
+  {
+    return Collections.unmodifiableSet(this.declaredClasses);
+  }
+
+  /**
+   * Get classes referenced but not declared by source file.
+   *
+   * @return referenced classes.
+   */
+  public Set<String> getReferencedClasses()
+  {
+    Set<String> referencedClasses = new HashSet<String>(this.referencedClasses);
+    referencedClasses.removeAll(this.declaredClasses);
+    return referencedClasses;
+  }
+
+  /**
+   * Get classes looked up on project index. Unlike referenced classes, this set may contain classes declared by source
+   * file, since other files contribute to index records of declared classes too, e.g. by <code>$extends</code>.
+   *
+   * @return classes looked up on project index.
+   */
+  public Set<String> getIndexedClasses()
+  {
+    return Collections.unmodifiableSet(this.indexedClasses);
+  }
+
+  public void write(DataOutput output) throws IOException
+  {
+    write(output, this.declaredClasses);
+    write(output, getReferencedClasses());
+    write(output, this.indexedClasses);
+  }
+
+  public static Dependencies read(DataInput input) throws IOException
+  {
+    Dependencies dependencies = new Dependencies();
+    read(input, dependencies.declaredClasses);
+    read(input, dependencies.referencedClasses);
+    read(input, dependencies.indexedClasses);
+    return dependencies;
+  }
+
+  private static void write(DataOutput output, Set<String> classes) throws IOException
+  {
+    output.writeInt(classes.size());
+    for(String className : classes) {
+      output.writeUTF(className);
+    }
+  }
+
+  private static void read(DataInput input, Set<String> classes) throws IOException
+  {
+    int count = input.readInt();
+    for(int i = 0; i < count; ++i) {
+      classes.add(input.readUTF());
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package js.tools.lint;
+
+import java.util.Arrays;
+
+/**
+ * Compact record of a single warning: warning code, source file id, position and warning arguments, as given by the
+ * check that found it. Message is formatted only when a sink needs it, e.g. when written to console; till then a
+ * diagnostic holds only references to objects that already exist.
+ */
+final class Diagnostic
+{
+  private Warn warn;
+  /** Warning format for warnings without code, e.g. those of generic AST handlers; null if warning has code. */
+  private String text;
+  private int fileId;
+  private int line;
+  private int column;
+  private Object[] args;
+
+  /**
+   * Create diagnostic not bound to a source file, used only for message formatting.
+   *
+   * @param warn warning code,
+   * @param args warning arguments.
+   */
+  public Diagnostic(Warn warn, Object[] args)
+  {
+    this(warn, null, -1, 0, 0, args);
+  }
+
+  /**
+   * Create diagnostic.
+   *
+   * @param warn warning code, null for free text warning,
+   * @param text free text warning format, null if warning code is present,
+   * @param fileId id of source file, from {@link SourceFiles},
+   * @param line line number,
+   * @param column column number or 0 if not known,
+   * @param args warning arguments.
+   */
+  public Diagnostic(Warn warn, String text, int fileId, int line, int column, Object[] args)
+  {
+    this.warn = warn;
+    this.text = text;
+    this.fileId = fileId;
+    this.line = line;
+    this.column = column;
+    this.args = args;
+  }
+
+  /**
+   * Get warning code.
+   *
+   * @return warning code or null for free text warnings.
+   */
+  public Warn getWarn()
+  {
+    return this.warn;
+  }
+
+  public int getFileId()
+  {
+    return this.fileId;
+  }
+
+  public int getLine()
+  {
+    return this.line;
+  }
+
+  /**
+   * Get column number. AST nodes carry only line numbers so column is currently not known.
+   *
+   * @return column number, 1 based, or 0 if not known.
+   */
+  public int getColumn()
+  {
+    return this.column;
+  }
+
+  /**
+   * Get message format, as expected by {@link js.tools.commons.ast.Log#warn(String, Object...)}. For coded warnings
+   * format is warning message followed by first argument, if any.
+   *
+   * @return message format.
+   */
+  public String getFormat()
+  {
+    if(this.warn == null) return this.text;
+    String message = this.warn.getMessage();
+    return this.args.length == 0 ? message + "." : message + ". " + this.args[0];
+  }
+
+  /**
+   * Get arguments for {@link #getFormat()}.
+   *
+   * @return format arguments.
+   */
+  public Object[] getFormatArgs()
+  {
+    if(this.warn == null || this.args.length == 0) return this.args;
+    return Arrays.copyOfRange(this.args, 1, this.args.length);
+  }
+
+  /**
+   * Format warning message.
+   *
+   * @return formatted message.
+   */
+  public String getMessage()
+  {
+    return String.format(getFormat(), getFormatArgs());
+  }
+}
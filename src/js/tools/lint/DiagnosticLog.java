@@ -0,0 +1,18 @@
+package js.tools.lint;
+
+import js.tools.commons.ast.Log;
+
+/**
+ * Log accepting warning codes with unformatted arguments, besides formatted warnings. Warnings reported by code are
+ * not formatted by log; formatting is delayed till message is actually written.
+ */
+abstract class DiagnosticLog extends Log
+{
+  /**
+   * Report warning by code at current source and node.
+   *
+   * @param warn warning code,
+   * @param args warning arguments, see {@link Diagnostic#getFormat()}.
+   */
+  public abstract void report(Warn warn, Object... args);
+}
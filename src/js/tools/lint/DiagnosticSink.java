@@ -0,0 +1,38 @@
+package js.tools.lint;
+
+import java.io.IOException;
+
+/**
+ * Destination of diagnostics. A sink is used by a single thread at a time; concurrent scanning reports diagnostics
+ * from reporter thread only, worker threads record them on their own {@link RecordingLog}.
+ */
+interface DiagnosticSink
+{
+  /**
+   * Receive a diagnostic. Sink may buffer it and format its message later or never.
+   *
+   * @param diagnostic diagnostic.
+   */
+  void report(Diagnostic diagnostic);
+
+  /**
+   * Write free text that is not a diagnostic, e.g. verbose messages, as it is.
+   *
+   * @param text text to write.
+   */
+  void print(String text);
+
+  /**
+   * Write buffered diagnostics, if any.
+   *
+   * @throws IOException if write fails.
+   */
+  void flush() throws IOException;
+
+  /**
+   * Complete output, e.g. write document footer, and release it. Standard streams are flushed but not closed.
+   *
+   * @throws IOException if write fails.
+   */
+  void close() throws IOException;
+}
@@ -76,7 +76,7 @@ final class FunctionCallHandler extends AstHandler
         writer.print(Warn.NO_CLASS_DEF);
         return;
       }
-      JsClass subClass = JsClass.forName(subClassName);
+      JsClass subClass = this.context.symbols.getJsClass(subClassName);
       if(subClass == null) {
         writer.print(Warn.BAD_ARG_TYPE);
         return;
@@ -87,13 +87,19 @@ final class FunctionCallHandler extends AstHandler
         writer.print(Warn.BAD_CLASS_NAME, "Bad superclass name format [%s].", superClassName);
         return;
       }
-      JsClass superClass = JsClass.forName(superClassName);
+      JsClass superClass = this.context.symbols.getJsClass(superClassName);
+      // subclass link is part of subclass declaration, as seen by project index
+      this.context.dependencies.declareClass(subClassName);
+      this.context.dependencies.referenceClass(superClassName);
       subClass.setSuperClass(superClass);
       return;
     }
 
     if(LEGACY.equals(functionName)) {
       this.context.legacy = true;
+      return;
     }
+    // static method invocation or class constructor used as function
+    this.context.dependencies.referenceClass(functionName);
   }
 }
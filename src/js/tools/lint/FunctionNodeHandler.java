@@ -0,0 +1,26 @@
+package js.tools.lint;
+
+import js.tools.commons.ast.AstHandler;
+
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.ast.FunctionNode;
+
+/**
+ * Keep context function scopes in sync with AST traversal so that handlers get enclosing class and function without
+ * walking and parsing parents for every node.
+ */
+final class FunctionNodeHandler extends AstHandler
+{
+  private Context context;
+
+  public FunctionNodeHandler(Context context)
+  {
+    this.context = context;
+  }
+
+  @Override
+  public void handle(Node node)
+  {
+    this.context.enterFunction((FunctionNode)node);
+  }
+}
@@ -1,44 +1,41 @@
 package js.tools.lint;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 final class JsClass
 {
-  private static Map<String, JsClass> jsClasses = new HashMap<String, JsClass>();
-
-  public static void clear()
-  {
-    jsClasses.clear();
-  }
-
-  public static JsClass forName(String qualifiedName)
-  {
-    JsClass jsClass = jsClasses.get(qualifiedName);
-    if(jsClass == null) {
-      jsClass = new JsClass(qualifiedName);
-      jsClasses.put(qualifiedName, jsClass);
-    }
-    return jsClass;
-  }
-
-  public static Collection<JsClass> getClasses()
-  {
-    return jsClasses.values();
-  }
-
   private String name;
   private JsClass superClass;
-  List<JsField> fields = new ArrayList<JsField>();
-  List<JsField> staticFields = new ArrayList<JsField>();
-
-  private JsClass(String name)
+  private ClassHierarchy hierarchy;
+  private int id;
+  private Map<String, JsField> fields = new HashMap<String, JsField>();
+  private Map<String, JsField> staticFields = new HashMap<String, JsField>();
+  /** Instance fields imported from project index; they are visible as class fields but are not declared by current file. */
+  private Map<String, JsField> indexedFields = new HashMap<String, JsField>();
+  /** Own and inherited fields, lazily created and discarded on class members version change. */
+  private Map<String, JsField> allFields;
+  private int allFieldsVersion;
+
+  JsClass(String name, ClassHierarchy hierarchy)
   {
     assert name != null;
     this.name = name;
+    this.hierarchy = hierarchy;
+    this.id = hierarchy.register(this);
+  }
+
+  /**
+   * Get class id, unique in the scope of class hierarchy.
+   *
+   * @return class id.
+   */
+  int getId()
+  {
+    return this.id;
   }
 
   public String getName()
@@ -48,7 +45,9 @@ final class JsClass
 
   public void setSuperClass(JsClass superClass)
   {
+    JsClass oldSuperClass = this.superClass;
     this.superClass = superClass;
+    this.hierarchy.link(this, oldSuperClass, superClass);
   }
 
   public JsClass getSuperClass()
@@ -56,22 +55,83 @@ final class JsClass
     return this.superClass;
   }
 
+  /**
+   * Test if this class is the same as or a subclass of given class, in constant time.
+   *
+   * @param jsClass superclass to test against.
+   * @return true if this class is kind of given class.
+   */
+  public boolean isSubClassOf(JsClass jsClass)
+  {
+    return this.hierarchy.isSubClass(this, jsClass);
+  }
+
   public boolean is(String qualifiedName)
   {
     return this.name.equals(qualifiedName);
   }
 
+  /**
+   * Add instance field declared by this class. If a field with the same name is already declared this method does
+   * nothing, that is, first declaration wins.
+   *
+   * @param name field name,
+   * @param type field type name, possible null.
+   */
   public void addField(String name, String type)
   {
-    this.fields.add(new JsField(name, type));
+    if(this.fields.containsKey(name)) return;
+    this.fields.put(name, new JsField(name, type));
+    this.hierarchy.touch(this);
   }
 
+  /**
+   * Add instance field declared by this class in another source file, as recorded by project index. Indexed field is
+   * visible to {@link #getField(String)} but is not a declared field, so that current file constructor is still able to
+   * declare it.
+   *
+   * @param name field name,
+   * @param type field type name, possible null.
+   */
+  public void addIndexedField(String name, String type)
+  {
+    if(this.indexedFields.containsKey(name)) return;
+    this.indexedFields.put(name, new JsField(name, type));
+    this.hierarchy.touch(this);
+  }
+
+  /**
+   * Get instance field declared by this class, ignoring inherited fields.
+   *
+   * @param name field name.
+   * @return declared field or null.
+   */
+  public JsField getDeclaredField(String name)
+  {
+    return this.fields.get(name);
+  }
+
+  public boolean hasDeclaredField(String name)
+  {
+    return this.fields.containsKey(name);
+  }
+
+  /**
+   * Get instance field declared by this class or inherited from superclasses. Inherited fields are resolved from a
+   * flattened fields view built on first request after this class or one of its superclasses change, so that lookup
+   * does not walk superclasses.
+   *
+   * @param name field name.
+   * @return field or null.
+   */
   public JsField getField(String name)
   {
-    for(JsField field : this.fields) {
-      if(field.getName().equals(name)) return field;
+    int version = this.hierarchy.getVersion(this);
+    if(this.allFields == null || this.allFieldsVersion != version) {
+      this.allFields = collectFields();
+      this.allFieldsVersion = version;
     }
-    return null;
+    return this.allFields.get(name);
   }
 
   public boolean hasField(String name)
@@ -79,17 +139,35 @@ final class JsClass
     return getField(name) != null;
   }
 
+  private Map<String, JsField> collectFields()
+  {
+    if(this.superClass == null && this.indexedFields.isEmpty()) {
+      return this.fields;
+    }
+    List<JsClass> chain = new ArrayList<JsClass>();
+    BitSet visited = new BitSet();
+    for(JsClass c = this; c != null && !visited.get(c.id); c = c.superClass) {
+      visited.set(c.id);
+      chain.add(c);
+    }
+    // walk from root class so that subclass fields hide superclass fields with the same name
+    Map<String, JsField> fields = new HashMap<String, JsField>();
+    for(int i = chain.size() - 1; i >= 0; --i) {
+      fields.putAll(chain.get(i).indexedFields);
+      fields.putAll(chain.get(i).fields);
+    }
+    return fields;
+  }
+
   public void addStaticField(String name, String type)
   {
-    this.staticFields.add(new JsField(name, type));
+    if(this.staticFields.containsKey(name)) return;
+    this.staticFields.put(name, new JsField(name, type));
   }
 
   public JsField getStaticField(String name)
   {
-    for(JsField field : this.staticFields) {
-      if(field.getName().equals(name)) return field;
-    }
-    return null;
+    return this.staticFields.get(name);
   }
 
   public boolean hasStaticField(String name)
@@ -4,33 +4,112 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Type annotations extracted from a j(s)-script apidoc comment. Recognized annotations are <code>@constructor</code>,
+ * <code>@return</code>, <code>@type</code>, <code>@param</code> and <code>@throws</code>; the type is the first word
+ * following annotation name.
+ * <p>
+ * Comment is scanned once, by a hand-written tokenizer that recognizes the same annotations as the regular expression
+ * <code>^[^@]+@(constructor|return|type|param|throws)\s+([^\s]+)?.*$</code> applied in multiline mode: annotation is
+ * considered only if there is at least one character between line start and <code>@</code> sign, with no other
+ * <code>@</code> in between, and searching resumes at the end of the line containing annotation type.
+ */
 final class JsDoc
 {
-  private static final Pattern annotationPattern = Pattern.compile("^[^@]+@(constructor|return|type|param|throws)\\s+([^\\s]+)?.*$", Pattern.MULTILINE);
   private static final String CONSTRUCTOR = "constructor";
   private static final String RETURN = "return";
   private static final String TYPE = "type";
   private static final String PARAM = "param";
   private static final String THROWS = "throws";
+  private static final String[] ANNOTATIONS = new String[]
+  {
+      CONSTRUCTOR, RETURN, TYPE, PARAM, THROWS
+  };
 
   private Map<String, List<String>> annotations = new HashMap<String, List<String>>();
 
   JsDoc(String apidoc)
   {
-    Matcher matcher = annotationPattern.matcher(apidoc);
-    while(matcher.find()) {
-      String annotation = matcher.group(1);
-      String type = matcher.group(2);
-      List<String> types = this.annotations.get(annotation);
-      if(types == null) {
-        types = new ArrayList<String>();
-        this.annotations.put(annotation, types);
+    int length = apidoc.length();
+    // start of the current line and of the previous one; an annotation needs a line start before its @ sign
+    int lineStart = 0;
+    int previousLineStart = -1;
+    // position after last @ sign and end of last recognized annotation; line start should not precede any of them
+    int lowerBound = 0;
+
+    for(int i = 0; i < length; ++i) {
+      char c = apidoc.charAt(i);
+      if(i > 0 && isLineStart(apidoc, i)) {
+        previousLineStart = lineStart;
+        lineStart = i;
       }
-      types.add(type);
+      if(c != '@') continue;
+
+      int start = lineStart < i ? lineStart : previousLineStart;
+      boolean accepted = start >= lowerBound && start >= 0;
+      lowerBound = i + 1;
+      if(!accepted) continue;
+
+      String annotation = getAnnotation(apidoc, i + 1);
+      if(annotation == null) continue;
+      int j = i + 1 + annotation.length();
+      if(j == length || !isWhitespace(apidoc.charAt(j))) continue;
+      while(j < length && isWhitespace(apidoc.charAt(j))) {
+        ++j;
+      }
+      int typeStart = j;
+      while(j < length && !isWhitespace(apidoc.charAt(j))) {
+        ++j;
+      }
+      addAnnotation(annotation, typeStart < j ? apidoc.substring(typeStart, j) : null);
+
+      while(j < length && !isLineTerminator(apidoc.charAt(j))) {
+        ++j;
+      }
+      // resume scanning at the end of annotation line; line start bookkeeping is done by the loop
+      lowerBound = j;
+      i = j - 1;
+    }
+  }
+
+  private void addAnnotation(String annotation, String type)
+  {
+    List<String> types = this.annotations.get(annotation);
+    if(types == null) {
+      types = new ArrayList<String>();
+      this.annotations.put(annotation, types);
     }
+    types.add(type);
+  }
+
+  private static String getAnnotation(String apidoc, int offset)
+  {
+    for(String annotation : ANNOTATIONS) {
+      if(apidoc.startsWith(annotation, offset)) return annotation;
+    }
+    return null;
+  }
+
+  /**
+   * Test if position is at line start, in the sense of multiline regular expressions: it follows a line terminator
+   * but is not between carriage return and new line.
+   */
+  private static boolean isLineStart(String apidoc, int position)
+  {
+    char c = apidoc.charAt(position - 1);
+    if(c == '\r') return apidoc.charAt(position) != '\n';
+    return c == '\n' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isLineTerminator(char c)
+  {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isWhitespace(char c)
+  {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
   }
 
   public boolean hasConstructor()
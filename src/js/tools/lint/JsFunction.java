@@ -1,32 +1,14 @@
 package js.tools.lint;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 final class JsFunction
 {
-  private static Map<String, JsFunction> jsFunctions = new HashMap<String, JsFunction>();
-
-  public static JsFunction forName(String qualifiedName)
-  {
-    JsFunction jsFunction = jsFunctions.get(qualifiedName);
-    if(jsFunction == null) {
-      jsFunction = new JsFunction(qualifiedName);
-      jsFunctions.put(qualifiedName, jsFunction);
-    }
-    return jsFunction;
-  }
-
   private String qualifiedName;
   private JsType declaredReturnType;
-  private List<JsVariable> variables = new ArrayList<JsVariable>();
 
   public JsFunction(String qualifiedName)
   {
     this.qualifiedName = qualifiedName;
-    this.declaredReturnType = new JsType();
+    this.declaredReturnType = JsType.getInstance(JsType.VOID);
   }
 
   public String getName()
@@ -34,27 +16,9 @@ final class JsFunction
     return this.qualifiedName;
   }
 
-  public void setApiDoc(String apidoc)
-  {
-    this.declaredReturnType = JsType.getInstance(new JsDoc(apidoc).getReturnType());
-  }
-
-  public void addVariable(String name, JsType jsType)
-  {
-    this.variables.add(new JsVariable(name, jsType));
-  }
-
-  public JsVariable getVariable(String name)
-  {
-    for(JsVariable variable : this.variables) {
-      if(variable.getName().equals(name)) return variable;
-    }
-    return null;
-  }
-
-  public boolean hasVariable(String name)
+  public void setDeclaredReturnType(JsType declaredReturnType)
   {
-    return getVariable(name) != null;
+    this.declaredReturnType = declaredReturnType;
   }
 
   public boolean isAnonymous()
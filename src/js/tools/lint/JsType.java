@@ -1,9 +1,11 @@
 package js.tools.lint;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import js.tools.commons.ast.Names;
 
@@ -15,44 +17,138 @@ import org.mozilla.javascript.ast.Name;
 import org.mozilla.javascript.ast.NewExpression;
 import org.mozilla.javascript.ast.ObjectLiteral;
 
+/**
+ * Type of a j(s)-script expression. Types are flyweights: built-in types are singletons and class types are weakly
+ * interned by name, so {@link #getInstance(String)} and {@link #getInstance(AstNode)} do not allocate on lint hot path.
+ * Type predicates are resolved from type kind and do not compare strings. Public constructors are kept for
+ * compatibility; they create types equal to, but not the same as, the canonical instances.
+ */
 public class JsType
 {
+  static final String VOID = "Void";
   static final String UNKNOWN = "Unknown";
 
-  private static final String VOID = "Void";
-  private static final String UNDEFINED = "Undefined";
-  private static final String NULL = "Null";
-  private static final String STRING = "String";
-  private static final String NUMBER = "Number";
-  private static final String BOOLEAN = "Boolean";
-  private static final String OBJECT = "Object";
-  private static final String ARRAY = "Array";
-  private static final String REGEXP = "RegExp";
-  private static final String FUNCTION = "Function";
+  private enum Kind
+  {
+    VOID(JsType.VOID, false),
+    UNKNOWN(JsType.UNKNOWN, true),
+    UNDEFINED("Undefined", false),
+    NULL("Null", false),
+    STRING("String", false),
+    NUMBER("Number", false),
+    BOOLEAN("Boolean", false),
+    OBJECT("Object", true),
+    ARRAY("Array", false),
+    REGEXP("RegExp", false),
+    FUNCTION("Function", false),
+    /** User defined class, type name is class qualified name. */
+    CLASS(null, true);
+
+    private String typeName;
+    private boolean object;
+
+    private Kind(String typeName, boolean object)
+    {
+      this.typeName = typeName;
+      this.object = object;
+    }
+  }
+
+  /** Canonical instances of built-in types, indexed by type name. */
+  private static final Map<String, JsType> builtins = new HashMap<String, JsType>();
+  static {
+    for(Kind kind : Kind.values()) {
+      if(kind.typeName != null) {
+        builtins.put(kind.typeName, new JsType(kind.typeName, kind));
+      }
+    }
+  }
+
+  private static final JsType VOID_TYPE = builtins.get(Kind.VOID.typeName);
+  private static final JsType UNKNOWN_TYPE = builtins.get(Kind.UNKNOWN.typeName);
+  private static final JsType UNDEFINED_TYPE = builtins.get(Kind.UNDEFINED.typeName);
+  private static final JsType NULL_TYPE = builtins.get(Kind.NULL.typeName);
+  private static final JsType STRING_TYPE = builtins.get(Kind.STRING.typeName);
+  private static final JsType NUMBER_TYPE = builtins.get(Kind.NUMBER.typeName);
+  private static final JsType BOOLEAN_TYPE = builtins.get(Kind.BOOLEAN.typeName);
+  private static final JsType OBJECT_TYPE = builtins.get(Kind.OBJECT.typeName);
+  private static final JsType ARRAY_TYPE = builtins.get(Kind.ARRAY.typeName);
+  private static final JsType REGEXP_TYPE = builtins.get(Kind.REGEXP.typeName);
+  private static final JsType FUNCTION_TYPE = builtins.get(Kind.FUNCTION.typeName);
+
+  /**
+   * Interned class types, shared by all lint sessions. Values are weakly referenced so that a long running engine does
+   * not retain class names no longer referenced by any symbol table; cleared entries are purged on intern.
+   */
+  private static final ConcurrentMap<String, ClassTypeReference> classes = new ConcurrentHashMap<String, ClassTypeReference>();
+  private static final ReferenceQueue<JsType> clearedClasses = new ReferenceQueue<JsType>();
 
   public static JsType getInstance(String typeName)
   {
-    if(typeName == null) return new JsType();
-    return new JsType(typeName);
+    if(typeName == null) return VOID_TYPE;
+    JsType jsType = builtins.get(typeName);
+    if(jsType != null) return jsType;
+    ClassTypeReference reference = classes.get(typeName);
+    if(reference != null) {
+      jsType = reference.get();
+      if(jsType != null) return jsType;
+    }
+    return internClass(typeName);
+  }
+
+  private static JsType internClass(String typeName)
+  {
+    purgeClasses();
+    JsType jsType = new JsType(typeName, Kind.CLASS);
+    ClassTypeReference reference = new ClassTypeReference(typeName, jsType);
+    for(;;) {
+      ClassTypeReference existingReference = classes.putIfAbsent(typeName, reference);
+      if(existingReference == null) return jsType;
+      JsType existingType = existingReference.get();
+      if(existingType != null) return existingType;
+      if(classes.replace(typeName, existingReference, reference)) return jsType;
+    }
+  }
+
+  private static void purgeClasses()
+  {
+    ClassTypeReference reference;
+    while((reference = (ClassTypeReference)clearedClasses.poll()) != null) {
+      classes.remove(reference.typeName, reference);
+    }
+  }
+
+  /**
+   * Weak reference to interned class type, keeping its type name for removal from interned classes map.
+   */
+  private static final class ClassTypeReference extends WeakReference<JsType>
+  {
+    private final String typeName;
+
+    ClassTypeReference(String typeName, JsType jsType)
+    {
+      super(jsType, clearedClasses);
+      this.typeName = typeName;
+    }
   }
 
   public static JsType getInstance(AstNode node)
   {
     if(node == null) {
-      return new JsType();
+      return VOID_TYPE;
     }
 
     if(node instanceof ObjectLiteral) {
       AstNode parent = node.getParent();
       if(parent instanceof Assignment) {
-        Assignment assignment = new Assignment();
-        return new JsType(Names.getName(assignment.getLeft()));
+        Assignment assignment = (Assignment)parent;
+        return getInstance(Names.getName(assignment.getLeft()));
       }
     }
 
     if(node instanceof NewExpression) {
       NewExpression newExpression = (NewExpression)node;
-      return new JsType(Names.getName(newExpression.getTarget()));
+      return getInstance(Names.getName(newExpression.getTarget()));
     }
 
     if(node instanceof FunctionCall) {
@@ -63,116 +159,132 @@ public class JsType
       // 2. constructor as a function: js.util.Timer(...)
       int i = functionName.lastIndexOf('.');
       if(i != -1) {
-        return new JsType(Character.isLowerCase(functionName.charAt(i + 1)) ? functionName.substring(0, i) : functionName);
+        return getInstance(Character.isLowerCase(functionName.charAt(i + 1)) ? functionName.substring(0, i) : functionName);
       }
     }
 
     if(node instanceof Name) {
       Name name = (Name)node;
-      if(UNDEFINED.equalsIgnoreCase(name.getIdentifier())) {
-        return new JsType(UNDEFINED);
+      if(Kind.UNDEFINED.typeName.equalsIgnoreCase(name.getIdentifier())) {
+        return UNDEFINED_TYPE;
       }
     }
 
     switch(node.getType()) {
     case Token.GETPROP:
       String name = Names.getName(node);
-      if(Utils.isStaticMemberName(name)) return new JsType(Utils.getStaticMemberClassName(name));
+      int kind = NameKind.classify(name);
+      if(NameKind.is(kind, NameKind.STATIC_MEMBER)) return getInstance(name.substring(0, NameKind.getClassEnd(kind)));
       break;
 
     case Token.STRING:
-      return new JsType(STRING);
+      return STRING_TYPE;
 
     case Token.NUMBER:
-      return new JsType(NUMBER);
+      return NUMBER_TYPE;
 
     case Token.FALSE:
     case Token.TRUE:
-      return new JsType(BOOLEAN);
+      return BOOLEAN_TYPE;
 
     case Token.NULL:
-      return new JsType(NULL);
+      return NULL_TYPE;
 
     case Token.OBJECTLIT:
-      return new JsType(OBJECT);
+      return OBJECT_TYPE;
 
     case Token.FUNCTION:
-      return new JsType(FUNCTION);
+      return FUNCTION_TYPE;
 
     case Token.ARRAYLIT:
-      return new JsType(ARRAY);
+      return ARRAY_TYPE;
 
     case Token.REGEXP:
-      return new JsType(REGEXP);
+      return REGEXP_TYPE;
     }
-    return new JsType(UNKNOWN);
+    return UNKNOWN_TYPE;
   }
 
   private String value;
+  private Kind kind;
 
   public JsType()
   {
-    this.value = VOID;
+    this(VOID);
   }
 
   public JsType(String value)
   {
     this.value = value;
+    JsType builtin = builtins.get(value);
+    this.kind = builtin != null ? builtin.kind : Kind.CLASS;
+  }
+
+  private JsType(String value, Kind kind)
+  {
+    this.value = value;
+    this.kind = kind;
   }
 
-  public boolean isKindOf(JsType jsType)
+  /**
+   * Test if this type is the same or can be casted to given type. Class types are resolved against given symbol table;
+   * if symbol table is null class hierarchy is considered unknown.
+   *
+   * @param jsType type to test against,
+   * @param symbols symbol table used to resolve class hierarchy, possible null.
+   * @return true if this type is kind of given type.
+   */
+  boolean isKindOf(JsType jsType, SymbolTable symbols)
   {
-    return equals(jsType) || canCastTo(jsType);
+    return equals(jsType) || canCastTo(jsType, symbols);
   }
 
   public boolean isVoid()
   {
-    return this.value.equals(VOID);
+    return this.kind == Kind.VOID;
   }
 
   public boolean isUndefined()
   {
-    return this.value.equals(UNDEFINED);
+    return this.kind == Kind.UNDEFINED;
   }
 
   public boolean isObject()
   {
-    // TODO improve for speed
-    if(this.value.equals(VOID)) return false;
-    if(this.value.equals(UNDEFINED)) return false;
-    if(this.value.equals(NULL)) return false;
-    if(this.value.equals(STRING)) return false;
-    if(this.value.equals(NUMBER)) return false;
-    if(this.value.equals(BOOLEAN)) return false;
-    if(this.value.equals(FUNCTION)) return false;
-    if(this.value.equals(ARRAY)) return false;
-    if(this.value.equals(REGEXP)) return false;
-    return true;
+    return this.kind.object;
   }
 
   public boolean isFunction()
   {
-    return this.value.equals(FUNCTION);
+    return this.kind == Kind.FUNCTION;
   }
 
-  public boolean canCastTo(JsType jsType)
+  boolean canCastTo(JsType jsType, SymbolTable symbols)
   {
     // null can cast to everything but void
-    if(this.value.equals(NULL) && !jsType.value.equals(VOID)) return true;
-    if(this.value.equals(jsType.value)) return true;
-
-    if(isObject() && jsType.isObject()) {
-      if(jsType.value.equals(OBJECT)) return true;
-      JsClass c = JsClass.forName(this.value);
-      while(c != null) {
-        if(c.getName().equals(jsType.value)) return true;
-        c = c.getSuperClass();
-      }
-      return false;
+    if(this.kind == Kind.NULL && jsType.kind != Kind.VOID) return true;
+    if(equals(jsType)) return true;
+
+    if(this.kind.object && jsType.kind.object) {
+      if(jsType.kind == Kind.OBJECT) return true;
+      if(symbols == null) return false;
+      JsClass jsClass = symbols.findJsClass(this.value);
+      JsClass superClass = symbols.findJsClass(jsType.value);
+      if(jsClass == null || superClass == null) return false;
+      return jsClass.isSubClassOf(superClass);
     }
-    Set<String> canCastTo = casts.get(jsType.value);
-    if(canCastTo != null) {
-      return canCastTo.contains(this.value);
+
+    if(jsType.kind == Kind.BOOLEAN) {
+      switch(this.kind) {
+      case NULL:
+      case UNDEFINED:
+      case STRING:
+      case NUMBER:
+        return true;
+
+      default:
+        return false;
+      }
     }
     return false;
   }
@@ -193,20 +305,12 @@ public class JsType
     if(obj == null) return false;
     if(getClass() != obj.getClass()) return false;
     JsType other = (JsType)obj;
+    if(this.kind != other.kind) return false;
+    if(this.kind != Kind.CLASS) return true;
     if(this.value == null) {
       if(other.value != null) return false;
     }
     else if(!this.value.equals(other.value)) return false;
     return true;
   }
-
-  private static Map<String, Set<String>> casts = new HashMap<String, Set<String>>();
-  static {
-    Set<String> castableToBoolean = new HashSet<String>();
-    castableToBoolean.add(NULL);
-    castableToBoolean.add(UNDEFINED);
-    castableToBoolean.add(STRING);
-    castableToBoolean.add(NUMBER);
-    casts.put(BOOLEAN, castableToBoolean);
-  }
 }
@@ -8,7 +8,7 @@ class JsVariable
   public JsVariable(String name)
   {
     this.name = name;
-    this.type = new JsType(JsType.UNKNOWN);
+    this.type = JsType.getInstance(JsType.UNKNOWN);
   }
 
   public JsVariable(String name, String type)
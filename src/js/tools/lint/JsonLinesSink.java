@@ -0,0 +1,37 @@
+package js.tools.lint;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON Lines report, one JSON object per diagnostic and per line:
+ * <code>{"file":"Class.js","line":12,"rule":"BAD_ARG_TYPE","message":"..."}</code>. Column and rule are omitted if
+ * not known.
+ */
+final class JsonLinesSink extends ReportSink
+{
+  public JsonLinesSink(SourceFiles files, OutputStream stream, boolean closeStream) throws IOException
+  {
+    super(files, stream, closeStream);
+  }
+
+  @Override
+  protected void write(Diagnostic diagnostic) throws IOException
+  {
+    this.writer.write("{\"file\":");
+    writeJsonString(this.files.getName(diagnostic.getFileId()));
+    this.writer.write(",\"line\":");
+    this.writer.write(Integer.toString(diagnostic.getLine()));
+    if(diagnostic.getColumn() > 0) {
+      this.writer.write(",\"column\":");
+      this.writer.write(Integer.toString(diagnostic.getColumn()));
+    }
+    if(diagnostic.getWarn() != null) {
+      this.writer.write(",\"rule\":");
+      writeJsonString(diagnostic.getWarn().name());
+    }
+    this.writer.write(",\"message\":");
+    writeJsonString(diagnostic.getMessage());
+    this.writer.write("}\n");
+  }
+}
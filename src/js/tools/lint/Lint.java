@@ -2,11 +2,31 @@ package js.tools.lint;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import js.tools.commons.ast.Log;
 import js.tools.commons.util.Files;
-import js.tools.lint.test.MockLog;
 
 public class Lint
 {
@@ -14,52 +34,645 @@ public class Lint
   private static final String JS_EXT = ".js";
 
   private File sourcepath;
-  private List<File> excludes = new ArrayList<File>();
-  private JsParser jsParser = new JsParser();
+  /** Excluded directories, tested by hash lookup while walking source path. */
+  private Set<Path> excludes = new HashSet<Path>();
+  private Log log;
+  private LintSession session;
+  /** Incremental lint cache, null if not configured. */
+  private LintCache cache;
+  /** Source files collected by incremental scan, null if files are linted while scanning. */
+  private List<File> files;
+  /** Project mode runs a declaration pass over all source files before checking them. */
+  private boolean project;
+  /** Classes declared by all source files, built by project mode declaration pass; null if not in project mode. */
+  private ClassRegistry registry;
+  /** Persistent project index file, null if project index is rebuilt on every scan. */
+  private File indexFile;
+  /** Source files of last declaration pass, mapped by path in scanning order, kept for watcher reindex. */
+  private Map<String, ProjectIndexFile.Source> sources;
+  /** Mapped index file holding declarations of sources not loaded yet, null if all sources have their declarations. */
+  private ProjectIndexFile sourcesIndexFile;
+  /** Lint profiler, null if profiling is disabled. */
+  private Profiler profiler;
+  /** Profile summary file, written after every scan. */
+  private File profileFile;
+
+  /** Number of worker threads; concurrent scanning is enabled only if greater than one. */
+  private int threads;
+  private ExecutorService executor;
+  /** Concurrent scanning pipeline, null if files are not linted concurrently while scanning. */
+  private LintPipeline pipeline;
+  /** Lint session of every worker thread, recording warnings for later report. */
+  private ThreadLocal<LintSession> sessions = new ThreadLocal<LintSession>()
+  {
+    @Override
+    protected LintSession initialValue()
+    {
+      LintSession session = new LintSession(new RecordingLog(), Lint.this.profiler);
+      session.setSourcepath(Lint.this.sourcepath);
+      session.setRegistry(Lint.this.registry);
+      return session;
+    }
+  };
+  /** Declaration pass scanner of every worker thread, used by project mode. */
+  private ThreadLocal<DeclarationScanner> declarationScanners = new ThreadLocal<DeclarationScanner>()
+  {
+    @Override
+    protected DeclarationScanner initialValue()
+    {
+      return new DeclarationScanner();
+    }
+  };
 
   public Lint(Config config)
   {
+    this(config, createLog(config));
+  }
+
+  /**
+   * Create lint engine reporting warnings to given logger.
+   *
+   * @param config lint configuration,
+   * @param log logger for warnings.
+   */
+  Lint(Config config, Log log)
+  {
+    this.log = log;
     this.sourcepath = config.sourcepath;
     for(String excludePackage : config.excludes) {
-      this.excludes.add(new File(this.sourcepath, Files.dot2path(excludePackage)));
+      this.excludes.add(new File(this.sourcepath, Files.dot2path(excludePackage)).toPath());
+    }
+    this.threads = config.threads;
+    this.project = config.project;
+    this.indexFile = config.index;
+    if(config.profile != null) {
+      this.profiler = new Profiler();
+      this.profileFile = config.profile;
     }
-    this.jsParser.setLogger(new MockLog());
+    if(config.cache != null) {
+      this.cache = new LintCache(config.cache, this.project, this.sourcepath);
+    }
+    // with cache enabled warnings are recorded so that they can be stored
+    this.session = new LintSession(this.cache != null ? new RecordingLog() : this.log, this.profiler);
+    this.session.setSourcepath(this.sourcepath);
   }
 
   public void scan() throws IOException
   {
+    if(this.profiler != null) {
+      // profile covers a single scan, watch mode and daemon engines scan many times
+      this.profiler.reset();
+    }
+    if(this.threads > 1) {
+      this.executor = Executors.newFixedThreadPool(this.threads);
+    }
+    Throwable failure = null;
+    try {
+      List<File> files = null;
+      if(this.cache != null || this.project) {
+        files = collectFiles();
+        if(this.cache != null) {
+          // incremental scan runs declaration pass only if some file changed
+          scanIncremental(files);
+          return;
+        }
+        index(files);
+      }
+      if(this.executor != null) {
+        this.pipeline = new LintPipeline(this, this.sessions, this.threads, this.profiler);
+      }
+      if(files == null) {
+        scan(this.sourcepath);
+      }
+      else {
+        for(File file : files) {
+          lint(file);
+        }
+      }
+      if(this.pipeline != null) {
+        this.pipeline.finish();
+      }
+    }
+    catch(Throwable e) {
+      failure = e;
+      throw e;
+    }
+    finally {
+      if(this.pipeline != null) {
+        this.pipeline.close();
+        this.pipeline = null;
+      }
+      if(this.executor != null) {
+        this.executor.shutdownNow();
+        this.executor = null;
+      }
+      this.files = null;
+      complete(failure);
+    }
+  }
+
+  /**
+   * Write buffered warnings and profile, if enabled, after scan. If scan failed, completion is still attempted but its
+   * failures are attached to scan failure, as suppressed, so that they do not mask it.
+   *
+   * @param failure scan failure, null if scan succeeded.
+   * @throws IOException if scan succeeded and completion fails.
+   */
+  private void complete(Throwable failure) throws IOException
+  {
+    if(failure == null) {
+      flush();
+      writeProfile();
+      return;
+    }
+    try {
+      flush();
+    }
+    catch(Throwable e) {
+      failure.addSuppressed(e);
+    }
+    try {
+      writeProfile();
+    }
+    catch(Throwable e) {
+      failure.addSuppressed(e);
+    }
+  }
+
+  private void writeProfile() throws IOException
+  {
+    if(this.profiler != null) {
+      this.profiler.write(this.profileFile);
+      this.profiler.printSlowestFiles(System.err);
+    }
+  }
+
+  /**
+   * Write warnings buffered by logger, if any. Invoked after every scan and by watcher after every changes batch.
+   *
+   * @throws IOException if write fails.
+   */
+  void flush() throws IOException
+  {
+    if(this.log instanceof SinkLog) {
+      ((SinkLog)this.log).flush();
+    }
+  }
+
+  /**
+   * Complete report, if any, and release it. Lint engine should not be used after close.
+   *
+   * @throws IOException if report write fails.
+   */
+  public void close() throws IOException
+  {
+    if(this.log instanceof SinkLog) {
+      ((SinkLog)this.log).close();
+    }
+  }
+
+  /**
+   * Collect source files, in scanning order, without linting them.
+   *
+   * @return source files.
+   * @throws IOException if directory scanning fails.
+   */
+  private List<File> collectFiles() throws IOException
+  {
+    this.files = new ArrayList<File>();
     scan(this.sourcepath);
+    List<File> files = this.files;
+    this.files = null;
+    return files;
   }
 
-  private void scan(File file) throws IOException
+  /**
+   * Project mode declaration pass. Collect declarations of all source files, concurrently if enabled, and merge them
+   * into project index in scanning order, so that index content does not depend on tasks completion order. Built index
+   * is installed on all lint sessions before checking pass starts.
+   * <p>
+   * If index file is configured, declarations of files unchanged since index file was saved are taken from it and only
+   * changed files are scanned; if no file changed the mapped index file is used as it is.
+   *
+   * @param files all source files, in scanning order.
+   * @throws IOException if source file reading fails.
+   */
+  private void index(List<File> files) throws IOException
   {
-    assert file.isDirectory();
-    if(isExcluded(file)) return;
-    for(File f : file.listFiles()) {
-      if(isHidden(f)) {
-        continue;
+    List<ProjectIndexFile.Source> sources = new ArrayList<ProjectIndexFile.Source>(files.size());
+    for(File file : files) {
+      sources.add(new ProjectIndexFile.Source(file));
+    }
+    this.sources = new LinkedHashMap<String, ProjectIndexFile.Source>();
+    for(ProjectIndexFile.Source source : sources) {
+      this.sources.put(source.path, source);
+    }
+    this.sourcesIndexFile = null;
+    ProjectIndexFile indexFile = null;
+    if(this.indexFile != null) {
+      indexFile = ProjectIndexFile.load(this.indexFile);
+      if(indexFile != null && indexFile.isCurrent(sources)) {
+        // sources declarations are loaded from mapped file only if watcher reindex needs them
+        this.sourcesIndexFile = indexFile;
+        setIndex(indexFile);
+        return;
       }
-      if(f.isDirectory()) {
-        scan(f);
-        continue;
+    }
+
+    List<Future<ProjectIndex>> tasks = new ArrayList<Future<ProjectIndex>>();
+    for(int i = 0; i < files.size(); ++i) {
+      ProjectIndexFile.Source source = sources.get(i);
+      if(indexFile != null) {
+        source.index = indexFile.getSourceIndex(source);
+      }
+      if(source.index == null) {
+        if(this.executor == null) {
+          source.index = this.declarationScanners.get().scan(files.get(i));
+        }
+        else {
+          tasks.add(this.executor.submit(new IndexTask(this.declarationScanners, files.get(i))));
+        }
       }
-      if(isPackageInfo(f)) {
+    }
+
+    ProjectIndex index = new ProjectIndex();
+    int taskIndex = 0;
+    for(ProjectIndexFile.Source source : sources) {
+      if(source.index == null) {
+        source.index = get(tasks.get(taskIndex++));
+      }
+      index.merge(source.index);
+    }
+    if(this.indexFile == null) {
+      setIndex(index);
+      return;
+    }
+    ProjectIndexFile.save(this.indexFile, sources, index);
+    indexFile = ProjectIndexFile.load(this.indexFile);
+    setIndex(indexFile != null ? indexFile : index);
+  }
+
+  /**
+   * Update project index with declarations of changed files, if in project mode, so that next linted files see them.
+   * Invoked by watcher before every changes batch. Only changed files are scanned, without walking source path; project
+   * index is merged again, in scanning order, from declarations of all files kept by last declaration pass. New files
+   * are merged last and files no longer existing are dropped. Index file, if configured, is not updated.
+   * <p>
+   * Returns unchanged files whose warnings may be stale because they depend on a class whose merged declaration
+   * changed. File dependencies are kept by lint cache so, if no cache is configured, returned list is empty.
+   *
+   * @param changedFiles changed source files.
+   * @return unchanged files depending on changed declarations, in scanning order.
+   * @throws IOException if source files reading fails.
+   */
+  List<File> reindex(Collection<File> changedFiles) throws IOException
+  {
+    if(!this.project) return Collections.emptyList();
+    DeclarationScanner scanner = this.declarationScanners.get();
+    // classes declared by changed files, before and after change; only their merged declarations can change
+    Set<String> classNames = new HashSet<String>();
+    for(File file : changedFiles) {
+      String path = file.getAbsolutePath();
+      ProjectIndexFile.Source source = this.sources.get(path);
+      if(source != null) {
+        classNames.addAll(getSourceIndex(source).getClassNames());
+      }
+      if(!file.exists()) {
+        this.sources.remove(path);
         continue;
       }
-      if(isSource(f)) {
-        this.jsParser.parse(f);
+      source = new ProjectIndexFile.Source(file);
+      source.index = scanner.scan(file);
+      classNames.addAll(source.index.getClassNames());
+      this.sources.put(path, source);
+    }
+
+    ProjectIndex index = new ProjectIndex();
+    for(ProjectIndexFile.Source source : this.sources.values()) {
+      index.merge(getSourceIndex(source));
+    }
+    ClassIndex previousIndex = this.registry.getIndex();
+    Set<String> changedClasses = new HashSet<String>();
+    for(String className : classNames) {
+      if(!isSameDeclaration(previousIndex, index, className)) {
+        changedClasses.add(className);
+      }
+    }
+    setIndex(index);
+    if(this.cache == null || changedClasses.isEmpty()) return Collections.emptyList();
+
+    Set<String> dependentPaths = this.cache.getDependentPaths(changedClasses, changedFiles);
+    List<File> dependentFiles = new ArrayList<File>();
+    for(String path : this.sources.keySet()) {
+      if(dependentPaths.contains(path)) {
+        dependentFiles.add(new File(path));
       }
     }
+    return dependentFiles;
   }
 
-  private boolean isExcluded(File file)
+  /**
+   * Get declarations of a source file from last declaration pass, loading them from mapped index file or scanning
+   * source file if not loaded yet.
+   */
+  private ProjectIndex getSourceIndex(ProjectIndexFile.Source source) throws IOException
+  {
+    if(source.index == null && this.sourcesIndexFile != null) {
+      source.index = this.sourcesIndexFile.getSourceIndex(source);
+    }
+    if(source.index == null) {
+      source.index = this.declarationScanners.get().scan(new File(source.path));
+    }
+    return source.index;
+  }
+
+  private static boolean isSameDeclaration(ClassIndex index1, ClassIndex index2, String className)
+  {
+    if(index1.hasClass(className) != index2.hasClass(className)) return false;
+    if(index1.isDeclared(className) != index2.isDeclared(className)) return false;
+    String superClassName1 = index1.getSuperClassName(className);
+    String superClassName2 = index2.getSuperClassName(className);
+    if(superClassName1 == null ? superClassName2 != null : !superClassName1.equals(superClassName2)) return false;
+    return index1.getFields(className).equals(index2.getFields(className));
+  }
+
+  private void setIndex(ClassIndex index)
+  {
+    // worker sessions are created on checking pass, after registry is set
+    this.registry = new ClassRegistry(index);
+    this.session.setRegistry(this.registry);
+  }
+
+  /**
+   * Incremental scan lints only files changed since cache was saved. It then lints again unchanged files depending on
+   * changed ones; warnings of all other files are taken from cache. Warnings are reported in scanning order, after all
+   * files are processed.
+   * <p>
+   * If no file was changed, added or removed, all warnings are replayed from cache: project mode declaration pass is
+   * not performed and cache file is saved only if touched files state was updated.
+   *
+   * @param files all source files, in scanning order.
+   * @throws IOException if file reading fails.
+   */
+  private void scanIncremental(List<File> files) throws IOException
   {
-    for(File excluded : this.excludes) {
-      if(excluded.equals(file)) {
-        return true;
+    this.cache.load();
+    List<RecordingLog> logs = new ArrayList<RecordingLog>(files.size());
+    List<File> changedFiles = new ArrayList<File>();
+    for(File file : files) {
+      RecordingLog log = this.cache.get(file);
+      if(log == null) {
+        changedFiles.add(file);
+      }
+      logs.add(log);
+    }
+
+    Map<File, RecordingLog> lintedLogs = new HashMap<File, RecordingLog>();
+    if(!changedFiles.isEmpty() || this.cache.hasRemovedFiles()) {
+      if(this.project) {
+        index(files);
       }
+      lintedLogs.putAll(lint(changedFiles));
+      lintedLogs.putAll(lint(this.cache.getStaleFiles(files)));
     }
-    return false;
+
+    for(int i = 0; i < files.size(); ++i) {
+      RecordingLog log = lintedLogs.get(files.get(i));
+      report(log != null ? log : logs.get(i));
+    }
+    if(this.cache.isModified()) {
+      this.cache.save();
+    }
+  }
+
+  /**
+   * Walk directory tree and lint source files as they are found, so that linting, or its tasks submission, overlaps the
+   * walk. File attributes come with directory entries, saving a file system query per file. Symbolic links are
+   * followed; a link back to an ancestor directory is skipped.
+   *
+   * @param directory directory to scan.
+   * @throws IOException if directory reading fails.
+   */
+  private void scan(File directory) throws IOException
+  {
+    assert directory.isDirectory();
+    final Path root = directory.toPath();
+    Set<FileVisitOption> options = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+    java.nio.file.Files.walkFileTree(root, options, Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+    {
+      @Override
+      public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes)
+      {
+        if(!path.equals(root) && isHidden(path)) return FileVisitResult.SKIP_SUBTREE;
+        return Lint.this.excludes.contains(path) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) throws IOException
+      {
+        // broken symbolic link has link attributes and is not a regular file
+        if(attributes.isRegularFile() && !isHidden(path)) {
+          String fileName = path.getFileName().toString();
+          if(fileName.endsWith(JS_EXT) && !fileName.endsWith(PACKAGE_INFO)) {
+            lint(path.toFile());
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path path, IOException exception) throws IOException
+      {
+        if(exception instanceof FileSystemLoopException) return FileVisitResult.CONTINUE;
+        throw exception;
+      }
+    });
+  }
+
+  /**
+   * Watch source path and lint source files as they are saved, till current thread is interrupted. Should be invoked
+   * after {@link #scan()}; it reuses the same warm lint session. Incremental lint cache, if configured, is updated in
+   * memory only, so that watcher finds files depending on changed ones, but is not saved; next incremental scan still
+   * sees watched changes and lints their dependents.
+   *
+   * @throws IOException if watching fails.
+   */
+  public void watch() throws IOException
+  {
+    if(this.project && this.sources == null) {
+      // incremental scan with no changes skips declaration pass; watcher reindex needs declarations of all files
+      index(collectFiles());
+    }
+    new LintWatcher(this, this.sourcepath).run();
+  }
+
+  void lint(File file) throws IOException
+  {
+    if(this.files != null) {
+      this.files.add(file);
+      return;
+    }
+    if(this.pipeline != null) {
+      this.pipeline.submit(file);
+      return;
+    }
+    if(this.cache != null) {
+      // only watcher lints single files with cache configured; dependencies are updated for its next reindex
+      report(lint(this.session, this.cache, file, null));
+      return;
+    }
+    this.session.lint(file);
+  }
+
+  /**
+   * Lint files, concurrently if enabled, and return recorded warnings. Used by incremental scan, all files warnings are
+   * recorded and stored on cache.
+   *
+   * @param files source files.
+   * @return recorded warnings, mapped by file.
+   * @throws IOException if waiting for lint tasks is interrupted.
+   */
+  private Map<File, RecordingLog> lint(List<File> files) throws IOException
+  {
+    Map<File, RecordingLog> logs = new HashMap<File, RecordingLog>();
+    if(this.executor == null) {
+      for(File file : files) {
+        logs.put(file, lint(this.session, this.cache, file, null));
+      }
+      return logs;
+    }
+
+    List<Future<RecordingLog>> tasks = new ArrayList<Future<RecordingLog>>(files.size());
+    for(File file : files) {
+      tasks.add(this.executor.submit(new LintTask(this.sessions, this.cache, file)));
+    }
+    for(int i = 0; i < files.size(); ++i) {
+      logs.put(files.get(i), get(tasks.get(i)));
+    }
+    return logs;
+  }
+
+  /**
+   * Lint file using given session, that should record warnings, and return recorded warnings. If cache is not null
+   * recorded warnings and file dependencies are stored on it. Failure, if any, is recorded on returned log and is not
+   * cached.
+   *
+   * @param session lint session with recording log,
+   * @param cache lint cache, possible null,
+   * @param file source file,
+   * @param source source file content or null to read it from file.
+   * @return warnings recorded for file.
+   */
+  static RecordingLog lint(LintSession session, LintCache cache, File file, String source)
+  {
+    RecordingLog log = (RecordingLog)session.getLog();
+    try {
+      if(source != null) {
+        session.lint(file, source);
+      }
+      else {
+        session.lint(file);
+      }
+    }
+    catch(Throwable e) {
+      log.setFailure(e);
+    }
+    RecordingLog fileLog = log.drain();
+    if(cache != null && fileLog.getFailure() == null) {
+      cache.put(file, fileLog, session.getDependencies());
+    }
+    return fileLog;
+  }
+
+  private static <T> T get(Future<T> task) throws IOException
+  {
+    try {
+      return task.get();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    catch(ExecutionException e) {
+      throw new LintException(e.getCause());
+    }
+  }
+
+  /**
+   * Replay recorded warnings on configured logger. If file lint failed its exception is rethrown after warnings replay,
+   * exactly as if file was processed by serial scanning.
+   *
+   * @param recordingLog warnings recorded for a file.
+   * @throws IOException if file lint failed with I/O exception.
+   */
+  void report(RecordingLog recordingLog) throws IOException
+  {
+    if(this.profiler == null) {
+      recordingLog.replay(this.log);
+    }
+    else {
+      long wallTime = System.nanoTime();
+      long cpuTime = this.profiler.cpuTime();
+      recordingLog.replay(this.log);
+      this.profiler.getPhase(Profiler.Phase.REPORT).add(System.nanoTime() - wallTime, this.profiler.cpuTime() - cpuTime);
+    }
+    Throwable failure = recordingLog.getFailure();
+    if(failure == null) return;
+    if(failure instanceof IOException) throw (IOException)failure;
+    if(failure instanceof RuntimeException) throw (RuntimeException)failure;
+    if(failure instanceof Error) throw (Error)failure;
+    throw new LintException(failure);
+  }
+
+  /**
+   * Test if directory should be scanned for source files, that is, it is source path itself or it is neither hidden
+   * nor excluded.
+   *
+   * @param directory directory to test.
+   * @return true if directory should be scanned.
+   */
+  boolean isSourceDirectory(File directory)
+  {
+    if(directory.equals(this.sourcepath)) return true;
+    return !isHidden(directory) && !isExcluded(directory);
+  }
+
+  /**
+   * Test if file is a source file that should be linted.
+   *
+   * @param file file to test.
+   * @return true if file should be linted.
+   */
+  boolean isSourceFile(File file)
+  {
+    return !isHidden(file) && !isPackageInfo(file) && isSource(file) && file.isFile();
+  }
+
+  /**
+   * Create default logger, writing warnings to configured report or, if no report format is configured, to standard
+   * error through a buffered console sink.
+   *
+   * @param config lint configuration.
+   * @return diagnostics logger.
+   * @throws LintException if report file cannot be created.
+   */
+  private static Log createLog(Config config)
+  {
+    SourceFiles files = new SourceFiles();
+    if(config.format == null) {
+      return new SinkLog(files, new ConsoleSink(files, System.err));
+    }
+    try {
+      return new SinkLog(files, ReportSink.create(config.format, config.report, files));
+    }
+    catch(IOException e) {
+      throw new LintException("Cannot create report file " + config.report, e);
+    }
+  }
+
+  private boolean isExcluded(File file)
+  {
+    return this.excludes.contains(file.toPath());
   }
 
   private boolean isHidden(File file)
@@ -67,6 +680,11 @@ public class Lint
     return file.getName().charAt(0) == '.';
   }
 
+  private static boolean isHidden(Path path)
+  {
+    return path.getFileName().toString().charAt(0) == '.';
+  }
+
   private boolean isPackageInfo(File file)
   {
     return file.getName().endsWith(PACKAGE_INFO);
@@ -76,4 +694,49 @@ public class Lint
   {
     return file.exists() && file.getName().endsWith(JS_EXT);
   }
+
+  /**
+   * Collect declarations of a single source file on a worker thread, for project index.
+   */
+  private static class IndexTask implements Callable<ProjectIndex>
+  {
+    private ThreadLocal<DeclarationScanner> scanners;
+    private File file;
+
+    IndexTask(ThreadLocal<DeclarationScanner> scanners, File file)
+    {
+      this.scanners = scanners;
+      this.file = file;
+    }
+
+    @Override
+    public ProjectIndex call() throws IOException
+    {
+      return this.scanners.get().scan(this.file);
+    }
+  }
+
+  /**
+   * Lint a single source file on a worker thread. Task uses the lint session of current worker and returns warnings
+   * recorded for its file.
+   */
+  private static class LintTask implements Callable<RecordingLog>
+  {
+    private ThreadLocal<LintSession> sessions;
+    private LintCache cache;
+    private File file;
+
+    LintTask(ThreadLocal<LintSession> sessions, LintCache cache, File file)
+    {
+      this.sessions = sessions;
+      this.cache = cache;
+      this.file = file;
+    }
+
+    @Override
+    public RecordingLog call()
+    {
+      return lint(this.sessions.get(), this.cache, this.file, null);
+    }
+  }
 }
@@ -0,0 +1,428 @@
+package js.tools.lint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental lint cache persisted on disk. Stores warnings recorded for every linted source file, keyed by file path
+ * and validated against file content hash. Source size and last modification time are kept too, as a fast path that
+ * avoids reading unchanged files. The whole cache is discarded if lint configuration fingerprint is not the same as the
+ * one cache was saved with.
+ * <p>
+ * Every entry also keeps classes declared, referenced and looked up on project index by its file. They form the class
+ * dependency graph used to find files whose cached warnings are stale because a file they depend on, directly or
+ * transitively, was changed, added or deleted; see {@link #getStaleFiles(List)}.
+ * <p>
+ * Cache is safe to use from concurrent lint tasks. Only entries of files visited by current scan are saved back, so
+ * that entries of deleted files do not accumulate.
+ */
+final class LintCache
+{
+  /** Cache file format version, to be incremented on every change of file format or of lint rules. */
+  private static final int VERSION = 6;
+  private static final int MAGIC = 0x4A534C43;
+  private static final String DIGEST_ALGORITHM = "SHA-1";
+
+  private File file;
+  private String fingerprint;
+  /** Entries loaded from cache file. */
+  private Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+  /** Entries of files visited by current scan, valid or newly linted. */
+  private Map<String, Entry> visited = new ConcurrentHashMap<String, Entry>();
+  /** State of files missing from cache, taken before linting them and waiting for their warnings. */
+  private Map<String, Entry> pending = new ConcurrentHashMap<String, Entry>();
+  /** Paths of files found unchanged by current scan, that is, cache hits. */
+  private Set<String> hits = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  /** Classes declared by changed files, both before and after change. */
+  private Set<String> changedClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  /** True if an entry was added or updated since cache was loaded, volatile since updated by concurrent lint tasks. */
+  private volatile boolean modified;
+
+  public LintCache(File file)
+  {
+    this(file, false, null);
+  }
+
+  /**
+   * Create cache for given lint mode and source path. Project mode warnings depend on other files declarations so they
+   * are not interchangeable with single file mode warnings; cache saved in a mode is discarded when loaded in the other.
+   * Recorded warnings name source files relative to source path, so cache saved for a source path is discarded when
+   * loaded for another one.
+   *
+   * @param file cache file,
+   * @param project true if lint runs in project mode,
+   * @param sourcepath source path, null if source files are named by file name.
+   */
+  public LintCache(File file, boolean project, File sourcepath)
+  {
+    this.file = file;
+    this.fingerprint = fingerprint(project, sourcepath);
+  }
+
+  /**
+   * Load cache entries from cache file. Missing, corrupt or stale cache file is not an error; cache is just empty.
+   */
+  public void load()
+  {
+    this.entries.clear();
+    this.visited.clear();
+    this.pending.clear();
+    this.hits.clear();
+    this.changedClasses.clear();
+    this.modified = false;
+    if(!this.file.exists()) return;
+
+    DataInputStream stream = null;
+    try {
+      stream = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+      if(stream.readInt() != MAGIC || stream.readInt() != VERSION) return;
+      if(!this.fingerprint.equals(stream.readUTF())) return;
+      int count = stream.readInt();
+      for(int i = 0; i < count; ++i) {
+        Entry entry = new Entry();
+        String path = stream.readUTF();
+        entry.size = stream.readLong();
+        entry.lastModified = stream.readLong();
+        entry.digest = new byte[stream.readUnsignedByte()];
+        stream.readFully(entry.digest);
+        entry.log = RecordingLog.read(stream);
+        entry.dependencies = Dependencies.read(stream);
+        this.entries.put(path, entry);
+      }
+    }
+    catch(IOException e) {
+      this.entries.clear();
+    }
+    finally {
+      close(stream);
+    }
+  }
+
+  /**
+   * Save entries of files visited by current scan. Cache is written to a temporary file first and renamed so that an
+   * interrupted save does not leave a truncated cache.
+   *
+   * @throws IOException if writing cache file fails.
+   */
+  public void save() throws IOException
+  {
+    File tempFile = new File(this.file.getPath() + ".tmp");
+    DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+    try {
+      stream.writeInt(MAGIC);
+      stream.writeInt(VERSION);
+      stream.writeUTF(this.fingerprint);
+      stream.writeInt(this.visited.size());
+      for(Map.Entry<String, Entry> mapEntry : this.visited.entrySet()) {
+        Entry entry = mapEntry.getValue();
+        stream.writeUTF(mapEntry.getKey());
+        stream.writeLong(entry.size);
+        stream.writeLong(entry.lastModified);
+        stream.writeByte(entry.digest.length);
+        stream.write(entry.digest);
+        entry.log.write(stream);
+        entry.dependencies.write(stream);
+      }
+    }
+    finally {
+      stream.close();
+    }
+    if(!tempFile.renameTo(this.file)) {
+      this.file.delete();
+      if(!tempFile.renameTo(this.file)) {
+        throw new IOException(String.format("Fail to rename cache file |%s| to |%s|.", tempFile, this.file));
+      }
+    }
+  }
+
+  /**
+   * Get warnings cached for source file, provided file was not changed since cached. File content is hashed only if
+   * file size or last modification time changed. On cache miss file state is kept till warnings are stored by
+   * {@link #put(File, RecordingLog)}; since state is taken before linting, a file changed while being linted is seen as
+   * changed on next lookup.
+   *
+   * @param jsFile source file.
+   * @return cached warnings or null if file is not cached or was changed.
+   * @throws IOException if reading source file fails.
+   */
+  public RecordingLog get(File jsFile) throws IOException
+  {
+    String path = jsFile.getAbsolutePath();
+    long size = jsFile.length();
+    long lastModified = jsFile.lastModified();
+    Entry entry = this.entries.get(path);
+    if(entry != null && entry.size == size && entry.lastModified == lastModified) {
+      this.visited.put(path, entry);
+      this.hits.add(path);
+      return entry.log;
+    }
+
+    byte[] digest = digest(jsFile);
+    if(entry != null && Arrays.equals(entry.digest, digest)) {
+      // touched but unchanged file; state is updated so that next scan takes the fast path
+      entry.size = size;
+      entry.lastModified = lastModified;
+      this.modified = true;
+      this.visited.put(path, entry);
+      this.hits.add(path);
+      return entry.log;
+    }
+
+    if(entry != null) {
+      this.changedClasses.addAll(entry.dependencies.getDeclaredClasses());
+    }
+    entry = new Entry();
+    entry.size = size;
+    entry.lastModified = lastModified;
+    entry.digest = digest;
+    this.pending.put(path, entry);
+    return null;
+  }
+
+  /**
+   * Store warnings recorded for source file not found by {@link #get(File)} or reported stale by
+   * {@link #getStaleFiles(List)}. A file linted by watcher, outside incremental scan, keeps its previous content state,
+   * or gets none if new, so that next incremental scan still sees it changed; its dependencies are updated.
+   *
+   * @param jsFile source file,
+   * @param log warnings recorded while linting source file,
+   * @param dependencies classes declared and referenced by source file.
+   */
+  public void put(File jsFile, RecordingLog log, Dependencies dependencies)
+  {
+    String path = jsFile.getAbsolutePath();
+    Entry entry = this.pending.remove(path);
+    if(entry != null) {
+      this.changedClasses.addAll(dependencies.getDeclaredClasses());
+    }
+    else {
+      Entry staleEntry = this.entries.get(path);
+      entry = new Entry();
+      if(staleEntry != null) {
+        entry.size = staleEntry.size;
+        entry.lastModified = staleEntry.lastModified;
+        entry.digest = staleEntry.digest;
+      }
+      else {
+        entry.size = -1;
+        entry.digest = new byte[0];
+      }
+    }
+    entry.log = log;
+    entry.dependencies = dependencies;
+    this.entries.put(path, entry);
+    this.visited.put(path, entry);
+    this.modified = true;
+  }
+
+  /**
+   * Test if an entry loaded from cache file was not visited by current scan, that is, its file was removed or excluded.
+   * Meaningful only after all files of current scan were looked up.
+   *
+   * @return true if a loaded entry was not visited.
+   */
+  public boolean hasRemovedFiles()
+  {
+    for(String path : this.entries.keySet()) {
+      if(!this.visited.containsKey(path)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Test if cache should be saved after current scan, that is, an entry was added, updated or removed since loaded.
+   *
+   * @return true if cache file is out of date.
+   */
+  public boolean isModified()
+  {
+    return this.modified || hasRemovedFiles();
+  }
+
+  /**
+   * Get unchanged files depending on changed ones. Should be invoked after all changed files were linted and stored.
+   * Changed files are files missing from cache or with changed content, and files removed since cache was saved. An
+   * unchanged file is stale if it references a class declared by a changed file or by another stale file.
+   *
+   * @param files all source files of current scan, in scanning order.
+   * @return stale files, in scanning order.
+   */
+  public List<File> getStaleFiles(List<File> files)
+  {
+    Set<String> changedClasses = new HashSet<String>(this.changedClasses);
+    Set<String> paths = new HashSet<String>();
+    for(File file : files) {
+      paths.add(file.getAbsolutePath());
+    }
+    for(Map.Entry<String, Entry> mapEntry : this.entries.entrySet()) {
+      if(!paths.contains(mapEntry.getKey())) {
+        // removed or excluded file
+        changedClasses.addAll(mapEntry.getValue().dependencies.getDeclaredClasses());
+      }
+    }
+
+    Set<String> stalePaths = getDependentPaths(this.hits, changedClasses);
+    List<File> staleFiles = new ArrayList<File>();
+    for(File file : files) {
+      if(stalePaths.contains(file.getAbsolutePath())) {
+        staleFiles.add(file);
+      }
+    }
+    return staleFiles;
+  }
+
+  /**
+   * Get files depending on classes whose declarations were changed by watched files, after changed files were linted
+   * and stored. Candidates are files visited by last scan or linted by watcher, but changed files.
+   *
+   * @param changedClasses changed classes,
+   * @param changedFiles changed files, already linted.
+   * @return paths of files depending on changed classes.
+   */
+  public Set<String> getDependentPaths(Set<String> changedClasses, Collection<File> changedFiles)
+  {
+    Set<String> paths = new HashSet<String>(this.visited.keySet());
+    for(File file : changedFiles) {
+      paths.remove(file.getAbsolutePath());
+    }
+    return getDependentPaths(paths, new HashSet<String>(changedClasses));
+  }
+
+  /**
+   * Get files, from given candidates, referencing or looking up a changed class, directly or through a class declared
+   * by another dependent file. Classes declared by dependent files are added to changed classes.
+   */
+  private Set<String> getDependentPaths(Collection<String> paths, Set<String> changedClasses)
+  {
+    // reverse dependency graph: referenced class to candidate files referencing it
+    Map<String, List<String>> referrers = new HashMap<String, List<String>>();
+    for(String path : paths) {
+      Dependencies dependencies = this.entries.get(path).dependencies;
+      addReferrer(referrers, dependencies.getReferencedClasses(), path);
+      addReferrer(referrers, dependencies.getIndexedClasses(), path);
+    }
+
+    Set<String> dependentPaths = new HashSet<String>();
+    LinkedList<String> queue = new LinkedList<String>(changedClasses);
+    while(!queue.isEmpty()) {
+      List<String> classReferrers = referrers.get(queue.removeFirst());
+      if(classReferrers == null) continue;
+      for(String path : classReferrers) {
+        if(dependentPaths.add(path)) {
+          for(String className : this.entries.get(path).dependencies.getDeclaredClasses()) {
+            if(changedClasses.add(className)) {
+              queue.add(className);
+            }
+          }
+        }
+      }
+    }
+    return dependentPaths;
+  }
+
+  private static void addReferrer(Map<String, List<String>> referrers, Set<String> classes, String path)
+  {
+    for(String className : classes) {
+      List<String> classReferrers = referrers.get(className);
+      if(classReferrers == null) {
+        classReferrers = new ArrayList<String>();
+        referrers.put(className, classReferrers);
+      }
+      // a path listed twice, both referencing and looking up a class, is deduplicated by stale paths set
+      classReferrers.add(path);
+    }
+  }
+
+  private static byte[] digest(File file) throws IOException
+  {
+    MessageDigest digest = getMessageDigest();
+    InputStream stream = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[8192];
+      int length;
+      while((length = stream.read(buffer)) != -1) {
+        digest.update(buffer, 0, length);
+      }
+    }
+    finally {
+      stream.close();
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Fingerprint of lint configuration that affects recorded warnings, that is, cache version, lint mode, source path
+   * and warnings set.
+   */
+  private static String fingerprint(boolean project, File sourcepath)
+  {
+    StringBuilder builder = new StringBuilder();
+    builder.append(VERSION);
+    builder.append(project ? ";project" : "");
+    if(sourcepath != null) {
+      builder.append(";sourcepath=");
+      builder.append(sourcepath.toPath().toAbsolutePath().normalize());
+    }
+    for(Warn warn : Warn.values()) {
+      builder.append(';');
+      builder.append(warn.name());
+      builder.append('=');
+      builder.append(warn.getMessage());
+    }
+
+    MessageDigest digest = getMessageDigest();
+    StringBuilder fingerprint = new StringBuilder();
+    for(byte b : digest.digest(builder.toString().getBytes())) {
+      fingerprint.append(String.format("%02x", b & 0xFF));
+    }
+    return fingerprint.toString();
+  }
+
+  private static MessageDigest getMessageDigest()
+  {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    }
+    catch(NoSuchAlgorithmException e) {
+      throw new LintException(e);
+    }
+  }
+
+  private static void close(InputStream stream)
+  {
+    if(stream == null) return;
+    try {
+      stream.close();
+    }
+    catch(IOException ignore) {}
+  }
+
+  private static class Entry
+  {
+    long size;
+    long lastModified;
+    byte[] digest;
+    RecordingLog log;
+    Dependencies dependencies;
+  }
+}
@@ -0,0 +1,64 @@
+package js.tools.lint;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Thin client sending lint options to {@link LintDaemon} and printing streamed back warnings on standard error, exactly
+ * as a local lint run does.
+ */
+final class LintClient
+{
+  private int port;
+
+  public LintClient(int port)
+  {
+    this.port = port;
+  }
+
+  /**
+   * Send lint request to daemon and print its response. Request starts with daemon token, read from the token file
+   * stored by daemon. Source path and cache file are sent as absolute paths since daemon working directory is not the
+   * same as client one.
+   *
+   * @param options lint options, connect option excluded.
+   * @throws IOException if daemon connection fails.
+   */
+  public void lint(String[] options) throws IOException
+  {
+    String token = LintDaemon.readToken(this.port);
+    Socket socket = new Socket(InetAddress.getByName(null), this.port);
+    try {
+      PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), LintDaemon.CHARSET)));
+      writer.println(token);
+      for(int i = 0; i < options.length; ++i) {
+        writer.println(options[i]);
+        if(Main.isPathOption(options[i]) && i + 1 < options.length) {
+          writer.println(new File(options[++i]).getAbsolutePath());
+        }
+      }
+      writer.println();
+      writer.flush();
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), LintDaemon.CHARSET));
+      for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if(line.equals(LintDaemon.END)) return;
+        if(line.startsWith(LintDaemon.ERROR)) {
+          throw new LintException(line.substring(LintDaemon.ERROR.length()));
+        }
+        System.err.println(line);
+      }
+      throw new IOException("Lint daemon closed connection before end of response.");
+    }
+    finally {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,297 @@
+package js.tools.lint;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Resident lint process serving {@link LintClient} requests on a loopback port, so that build does not pay JVM startup
+ * and warm up on every lint run. A request is the daemon token followed by the list of command line options, one per
+ * line, terminated by an empty line. Response is the list of warnings, formatted as by console log, terminated by
+ * {@link #END} line; a failing request sends an {@link #ERROR} line with exception before end line.
+ * <p>
+ * Loopback port is reachable by every local user while daemon reads and writes files, e.g. cache and index, with its
+ * owner privileges. For this reason daemon creates a random token on start, stored on a file readable only by its
+ * owner, see {@link #getTokenFile(int)}, and rejects requests not starting with that token. Since token is checked
+ * only after connection is accepted, at most {@link #MAX_CONNECTIONS} connections are served at once and idle ones are
+ * dropped after {@link #REQUEST_TIMEOUT}.
+ * <p>
+ * Daemon keeps a warm lint engine for every distinct configuration, up to {@link #MAX_ENGINES} least recently used
+ * ones. Requests for different configurations run concurrently whereas requests for the same configuration are
+ * serialized.
+ */
+final class LintDaemon
+{
+  static final String CHARSET = "UTF-8";
+  /** Response end line. */
+  static final String END = ".";
+  /** Prefix of response line reporting request failure. */
+  static final String ERROR = "!";
+  /** Maximum number of warm lint engines; least recently used one is discarded when exceeded. */
+  private static final int MAX_ENGINES = 8;
+  private static final int TOKEN_SIZE = 16;
+  /** Maximum number of connections served at once; further connections wait on server socket backlog. */
+  private static final int MAX_CONNECTIONS = 16;
+  /** Request read timeout, in milliseconds, so that idle connections do not hold daemon threads. */
+  private static final int REQUEST_TIMEOUT = 5000;
+
+  private int port;
+  /** Warm lint engines mapped by configuration key, in access order. */
+  private Map<String, Engine> engines = new LinkedHashMap<String, Engine>(MAX_ENGINES, 0.75F, true)
+  {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Engine> eldest)
+    {
+      // an engine in use by a request is not closed; it is only not reused by next requests
+      return size() > MAX_ENGINES;
+    }
+  };
+  /** Connection slots, one acquired before accepting a connection and released when connection is closed. */
+  private Semaphore connections = new Semaphore(MAX_CONNECTIONS);
+  private ExecutorService executor = Executors.newFixedThreadPool(MAX_CONNECTIONS);
+  private byte[] token;
+
+  public LintDaemon(int port)
+  {
+    this.port = port;
+  }
+
+  /**
+   * Serve lint requests till current thread is interrupted or server socket fails. Only loopback interface is bound.
+   * Daemon token file is created after port is bound and removed on exit.
+   *
+   * @throws IOException if server socket fails or token file cannot be created.
+   */
+  public void run() throws IOException
+  {
+    ServerSocket serverSocket = new ServerSocket(this.port, 0, InetAddress.getByName(null));
+    File tokenFile = getTokenFile(this.port);
+    try {
+      this.token = createToken(tokenFile);
+      // daemon is usually stopped by a signal, not by interrupt
+      tokenFile.deleteOnExit();
+      for(;;) {
+        this.connections.acquire();
+        final Socket socket;
+        try {
+          socket = serverSocket.accept();
+        }
+        catch(IOException e) {
+          this.connections.release();
+          throw e;
+        }
+        this.executor.execute(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            serve(socket);
+          }
+        });
+      }
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    finally {
+      serverSocket.close();
+      this.executor.shutdownNow();
+      tokenFile.delete();
+    }
+  }
+
+  /**
+   * Serve a single connection. A client that stops sending its request, token included, for {@link #REQUEST_TIMEOUT}
+   * is dropped; connection slot is released on exit.
+   */
+  private void serve(Socket socket)
+  {
+    try {
+      socket.setSoTimeout(REQUEST_TIMEOUT);
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), CHARSET));
+      PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), CHARSET)));
+      if(!isTokenValid(reader.readLine())) {
+        writer.println(ERROR + "Invalid lint daemon token.");
+        writer.println(END);
+        writer.flush();
+        return;
+      }
+      List<String> args = new ArrayList<String>();
+      for(String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+        args.add(line);
+      }
+      try {
+        lint(args, writer);
+      }
+      catch(Throwable e) {
+        // errors too are reported, otherwise client would wait forever for end line
+        writer.println(ERROR + e);
+        if(!(e instanceof Exception)) {
+          e.printStackTrace();
+        }
+      }
+      writer.println(END);
+      writer.flush();
+    }
+    catch(IOException e) {
+      // client gone; nothing to report to
+      e.printStackTrace();
+    }
+    finally {
+      try {
+        socket.close();
+      }
+      catch(IOException ignore) {}
+      this.connections.release();
+    }
+  }
+
+  private boolean isTokenValid(String line)
+  {
+    return line != null && MessageDigest.isEqual(this.token, line.getBytes(Charset.forName(CHARSET)));
+  }
+
+  private void lint(List<String> args, PrintWriter writer) throws IOException
+  {
+    Config config = Main.getConfig(args.toArray(new String[args.size()]));
+    if(config.sourcepath == null) {
+      throw new LintException("Missing source path.");
+    }
+    if(config.watch) {
+      throw new LintException("Watch mode is not supported by lint daemon.");
+    }
+    if(config.format != null || config.report != null) {
+      // daemon streams warnings back in console format; a report would be written by daemon, not by client
+      throw new LintException("Report format is not supported by lint daemon.");
+    }
+    if(config.excludes == null) {
+      config.excludes = Collections.emptyList();
+    }
+
+    Engine engine = getEngine(config);
+    synchronized(engine) {
+      engine.log.setWriter(writer);
+      try {
+        engine.lint.scan();
+      }
+      finally {
+        writer.flush();
+        engine.log.setWriter(null);
+      }
+    }
+  }
+
+  private synchronized Engine getEngine(Config config)
+  {
+    String key = String.format("%s|%s|%d|%s|%b|%s|%s", config.sourcepath.getAbsolutePath(), config.excludes, config.threads,
+        config.cache, config.project, config.index, config.profile);
+    Engine engine = this.engines.get(key);
+    if(engine == null) {
+      engine = new Engine(config);
+      this.engines.put(key, engine);
+    }
+    return engine;
+  }
+
+  /**
+   * Get the file storing daemon token, in user home directory.
+   *
+   * @param port daemon port.
+   * @return daemon token file.
+   */
+  static File getTokenFile(int port)
+  {
+    return new File(new File(System.getProperty("user.home"), ".js-lint"), "daemon-" + port + ".token");
+  }
+
+  /**
+   * Read daemon token stored by daemon running on given port.
+   *
+   * @param port daemon port.
+   * @return daemon token.
+   * @throws IOException if token file is missing or cannot be read.
+   */
+  static String readToken(int port) throws IOException
+  {
+    File tokenFile = getTokenFile(port);
+    if(!tokenFile.isFile()) {
+      throw new LintException(String.format("Missing lint daemon token file %s. Is lint daemon running on port %d?", tokenFile, port));
+    }
+    return new String(Files.readAllBytes(tokenFile.toPath()), CHARSET);
+  }
+
+  /**
+   * Create a random token and store it on given file. Both token file and its directory are accessible only to current
+   * user; on file systems without POSIX permissions, file permissions are restricted after creation.
+   */
+  private static byte[] createToken(File tokenFile) throws IOException
+  {
+    byte[] random = new byte[TOKEN_SIZE];
+    new SecureRandom().nextBytes(random);
+    StringBuilder builder = new StringBuilder();
+    for(byte b : random) {
+      builder.append(String.format("%02x", b & 0xFF));
+    }
+    byte[] token = builder.toString().getBytes(CHARSET);
+
+    File directory = tokenFile.getParentFile();
+    if(!directory.isDirectory() && !directory.mkdirs()) {
+      throw new LintException(String.format("Cannot create lint daemon directory %s.", directory));
+    }
+    Path path = tokenFile.toPath();
+    Files.deleteIfExists(path);
+    if(Files.getFileStore(directory.toPath()).supportsFileAttributeView("posix")) {
+      Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwx------"));
+      Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    }
+    else {
+      Files.createFile(path);
+      tokenFile.setReadable(false, false);
+      tokenFile.setReadable(true, true);
+      tokenFile.setWritable(false, false);
+      tokenFile.setWritable(true, true);
+    }
+    Files.write(path, token);
+    return token;
+  }
+
+  /**
+   * Warm lint engine and the log it streams warnings to.
+   */
+  private static class Engine
+  {
+    StreamLog log;
+    Lint lint;
+
+    Engine(Config config)
+    {
+      this.log = new StreamLog();
+      this.lint = new Lint(config, this.log);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package js.tools.lint;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a source file lint, from context reset to last warning. Event duration covers file
+ * reading, if not already read by caller, parsing and checking.
+ */
+@Name("js.tools.lint.LintFile")
+@Label("Lint File")
+@Category("JS Lint")
+@Description("Source file linted")
+final class LintFileEvent extends Event
+{
+  @Label("Path")
+  String path;
+
+  @Label("Size")
+  @DataAmount
+  long bytes;
+
+  @Label("Warnings")
+  int warnings;
+}
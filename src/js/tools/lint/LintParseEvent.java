@@ -0,0 +1,24 @@
+package js.tools.lint;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for scanner parse of a source file. Scanner dispatches nodes to AST handlers while parsing so
+ * event duration includes {@link LintRuleEvent} handlers time.
+ */
+@Name("js.tools.lint.LintParse")
+@Label("Lint Parse")
+@Category("JS Lint")
+@Description("Source file parsed and visited by AST handlers")
+final class LintParseEvent extends Event
+{
+  @Label("Path")
+  String path;
+
+  @Label("Syntax Error")
+  boolean syntaxError;
+}
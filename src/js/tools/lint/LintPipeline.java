@@ -0,0 +1,303 @@
+package js.tools.lint;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent scanning pipeline: discover, read, lint and report stages connected by bounded queues. Discovery runs on
+ * caller thread, reading on a small I/O pool, parsing and checking on a CPU sized pool and a single reporter replays
+ * warnings in discovery order, while scanning is still in progress.
+ * <p>
+ * Every discovered file reserves a slot on a {@link ReorderBuffer} first; since reorder buffer is bounded discovery
+ * blocks when too many files are in flight, that is, discovered but not yet reported. This bounds source texts, ASTs
+ * and recorded warnings held in memory, whatever stages relative speed. Read and lint queues have the same capacity so
+ * that only reorder buffer applies backpressure. Reporter emits every file warnings as soon as all files discovered
+ * before it are reported, so that output is the same as serial scanning output.
+ */
+final class LintPipeline
+{
+  /** End of stream marker, passed from every stage to the next one. */
+  private static final Item END = new Item(-1, null);
+  /**
+   * Reading is I/O bound, a couple of threads are enough to keep parsing busy. Readers are a small fixed pool of platform
+   * threads since virtual threads need JDK 21, newer than the JDK 11 this tree builds on.
+   */
+  private static final int IO_THREADS = 2;
+  /** Files in flight per CPU thread. */
+  private static final int ITEMS_PER_THREAD = 4;
+
+  private Lint lint;
+  private ThreadLocal<LintSession> sessions;
+  private int threads;
+  /** Profiler measuring read stage, null if profiling is disabled. */
+  private Profiler profiler;
+
+  private BlockingQueue<Item> readQueue;
+  private BlockingQueue<Item> lintQueue;
+  private ReorderBuffer<RecordingLog> reorderBuffer;
+
+  private ExecutorService readers;
+  private ExecutorService workers;
+  private ExecutorService reporter;
+  private Future<Void> reporterTask;
+  /** Number of readers that saw end marker, guarded by pipeline instance lock. */
+  private int finishedReaders;
+  /** Lint failure of first failing file, rethrown by {@link #finish()}; files discovered after it are not reported. */
+  private volatile Throwable failure;
+
+  /**
+   * Create pipeline and start its stages.
+   *
+   * @param lint lint engine, reporting warnings,
+   * @param sessions lint session of every worker thread,
+   * @param threads number of lint threads,
+   * @param profiler profiler, null if profiling is disabled.
+   */
+  public LintPipeline(Lint lint, ThreadLocal<LintSession> sessions, int threads, Profiler profiler)
+  {
+    this.lint = lint;
+    this.sessions = sessions;
+    this.threads = threads;
+    this.profiler = profiler;
+
+    int capacity = threads * ITEMS_PER_THREAD;
+    this.readQueue = new ArrayBlockingQueue<Item>(capacity);
+    this.lintQueue = new ArrayBlockingQueue<Item>(capacity);
+    this.reorderBuffer = new ReorderBuffer<RecordingLog>(capacity);
+
+    this.readers = Executors.newFixedThreadPool(IO_THREADS);
+    for(int i = 0; i < IO_THREADS; ++i) {
+      this.readers.submit(new SourceReader());
+    }
+    this.workers = Executors.newFixedThreadPool(threads);
+    for(int i = 0; i < threads; ++i) {
+      this.workers.submit(new Worker());
+    }
+    this.reporter = Executors.newSingleThreadExecutor();
+    this.reporterTask = this.reporter.submit(new Reporter());
+  }
+
+  /**
+   * Send discovered source file down the pipeline. Blocks while pipeline is full.
+   *
+   * @param file source file.
+   * @throws IOException if a previous file lint failed or if waiting is interrupted.
+   */
+  public void submit(File file) throws IOException
+  {
+    rethrowFailure();
+    try {
+      put(this.readQueue, new Item(this.reorderBuffer.reserve(), file));
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  /**
+   * Signal end of discovery and wait for all submitted files to be reported.
+   *
+   * @throws IOException if a file lint failed or if waiting is interrupted.
+   */
+  public void finish() throws IOException
+  {
+    put(this.readQueue, END);
+    this.reorderBuffer.close();
+    try {
+      this.reporterTask.get();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    catch(Exception e) {
+      throw new LintException(e.getCause());
+    }
+    rethrowFailure();
+  }
+
+  /**
+   * Stop all stage threads. Safe to invoke after {@link #finish()} and on failures. Waits for reporter to stop so that
+   * engine logger is not written after pipeline is closed.
+   */
+  public void close()
+  {
+    this.readers.shutdownNow();
+    this.workers.shutdownNow();
+    this.reporter.shutdownNow();
+    try {
+      this.reporter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void rethrowFailure() throws IOException
+  {
+    Throwable failure = this.failure;
+    if(failure == null) return;
+    if(failure instanceof IOException) throw (IOException)failure;
+    if(failure instanceof RuntimeException) throw (RuntimeException)failure;
+    if(failure instanceof Error) throw (Error)failure;
+    throw new LintException(failure);
+  }
+
+  private static void put(BlockingQueue<Item> queue, Item item) throws IOException
+  {
+    try {
+      queue.put(item);
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  /**
+   * Source file travelling through read and lint stages, with its reorder buffer sequence number.
+   */
+  private static final class Item
+  {
+    private long sequence;
+    private File file;
+    private String source;
+
+    Item(long sequence, File file)
+    {
+      this.sequence = sequence;
+      this.file = file;
+    }
+  }
+
+  /**
+   * Complete item with a failure log, so that failure is reported in discovery order and reorder buffer does not wait
+   * forever for the item.
+   */
+  private void fail(Item item, Throwable failure)
+  {
+    RecordingLog log = new RecordingLog();
+    log.setFailure(failure);
+    this.reorderBuffer.complete(item.sequence, log);
+  }
+
+  /**
+   * Read stage. Source file is read whole, with platform charset like lint session does; read failure, or any other
+   * failure, completes the item so that it is reported, in discovery order, as lint failure.
+   */
+  private final class SourceReader implements Runnable
+  {
+    @Override
+    public void run()
+    {
+      Charset charset = Charset.defaultCharset();
+      try {
+        for(;;) {
+          Item item = LintPipeline.this.readQueue.take();
+          if(item == END) {
+            // leave end marker for sibling readers; last one forwards it to lint stage
+            LintPipeline.this.readQueue.put(END);
+            if(this.isLast()) {
+              for(int i = 0; i < LintPipeline.this.threads; ++i) {
+                LintPipeline.this.lintQueue.put(END);
+              }
+            }
+            return;
+          }
+          Profiler profiler = LintPipeline.this.profiler;
+          long wallTime = 0;
+          long cpuTime = 0;
+          if(profiler != null) {
+            wallTime = System.nanoTime();
+            cpuTime = profiler.cpuTime();
+          }
+          try {
+            item.source = new String(Files.readAllBytes(item.file.toPath()), charset);
+          }
+          catch(Throwable e) {
+            LintPipeline.this.fail(item, e);
+            continue;
+          }
+          if(profiler != null) {
+            profiler.getPhase(Profiler.Phase.READ).add(System.nanoTime() - wallTime, profiler.cpuTime() - cpuTime);
+          }
+          LintPipeline.this.lintQueue.put(item);
+        }
+      }
+      catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private boolean isLast()
+    {
+      synchronized(LintPipeline.this) {
+        return ++LintPipeline.this.finishedReaders == IO_THREADS;
+      }
+    }
+  }
+
+  /**
+   * Lint stage, parsing and checking source text with the lint session of current thread. Lint failures are recorded on
+   * file log; a failure outside lint proper, e.g. on session creation, completes the item as well.
+   */
+  private final class Worker implements Runnable
+  {
+    @Override
+    public void run()
+    {
+      try {
+        for(;;) {
+          Item item = LintPipeline.this.lintQueue.take();
+          if(item == END) return;
+          RecordingLog log;
+          try {
+            log = Lint.lint(LintPipeline.this.sessions.get(), null, item.file, item.source);
+          }
+          catch(Throwable e) {
+            LintPipeline.this.fail(item, e);
+            continue;
+          }
+          LintPipeline.this.reorderBuffer.complete(item.sequence, log);
+        }
+      }
+      catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Report stage, replaying warnings on lint engine logger in discovery order. After first failure it keeps taking
+   * results, without reporting them, so that discovery is never blocked on a full reorder buffer.
+   */
+  private final class Reporter implements Callable<Void>
+  {
+    @Override
+    public Void call() throws InterruptedException
+    {
+      for(;;) {
+        RecordingLog log = LintPipeline.this.reorderBuffer.take();
+        if(log == null) return null;
+        if(LintPipeline.this.failure != null) continue;
+        try {
+          LintPipeline.this.lint.report(log);
+        }
+        catch(Throwable e) {
+          LintPipeline.this.failure = e;
+        }
+      }
+    }
+  }
+}
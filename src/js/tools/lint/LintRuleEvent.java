@@ -0,0 +1,32 @@
+package js.tools.lint;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for an AST handler work on a source file. Handler invocations are aggregated per file, one
+ * event per file and handler, so that recording volume does not grow with nodes count.
+ */
+@Name("js.tools.lint.LintRule")
+@Label("Lint Rule")
+@Category("JS Lint")
+@Description("AST handler invocations on a source file")
+final class LintRuleEvent extends Event
+{
+  @Label("Path")
+  String path;
+
+  @Label("Handler Class")
+  Class<?> handlerClass;
+
+  @Label("Node Count")
+  int nodeCount;
+
+  @Label("Handler Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long handlerTime;
+}
@@ -0,0 +1,268 @@
+package js.tools.lint;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.FlightRecorder;
+
+import js.tools.commons.ast.AstHandler;
+import js.tools.commons.ast.Log;
+import js.tools.commons.ast.Scanner;
+
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.ast.Assignment;
+import org.mozilla.javascript.ast.FunctionCall;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.NewExpression;
+import org.mozilla.javascript.ast.ObjectLiteral;
+import org.mozilla.javascript.ast.ReturnStatement;
+import org.mozilla.javascript.ast.SwitchStatement;
+import org.mozilla.javascript.ast.VariableInitializer;
+
+/**
+ * Long lived lint session. Scanner, context and AST handlers are created and bound once, on session creation; only
+ * context state is reset before every source file. A session is not thread safe but is cheap to keep one per worker
+ * thread.
+ */
+final class LintSession
+{
+  /** Flight recorder API is present, that is, running JVM has jdk.jfr module; events are never created if missing. */
+  private static final boolean FLIGHT_RECORDER = isFlightRecorderPresent();
+
+  private Log log;
+  private Scanner scanner;
+  private Context context;
+  /** Profiler, null if profiling is disabled. */
+  private Profiler profiler;
+  /** Absolute source path, source names are relative to; null if source names are file names. */
+  private Path sourcepath;
+  /** Bound handlers, recording flight recorder rule events while rule event is enabled. */
+  private List<RuleEventHandler> ruleEventHandlers = new ArrayList<RuleEventHandler>();
+
+  public LintSession(Log log)
+  {
+    this(log, null);
+  }
+
+  /**
+   * Create lint session measuring its work on given profiler.
+   *
+   * @param log logger for warnings,
+   * @param profiler profiler, null if profiling is disabled.
+   */
+  public LintSession(Log log, Profiler profiler)
+  {
+    this.log = log;
+    this.profiler = profiler;
+    this.scanner = new Scanner(log);
+    this.context = new Context();
+    this.context.writer = new Writer();
+    this.context.writer.setLog(log);
+    this.context.writer.setProfiler(profiler);
+
+    bind(FunctionNode.class, new FunctionNodeHandler(this.context));
+    bind(Assignment.class, new AssignmentHandler(this.context));
+    bind(FunctionCall.class, new FunctionCallHandler(this.context));
+    bind(NewExpression.class, new NewExpressionHandler(this.context));
+    bind(SwitchStatement.class, new SwitchStatementHandler(this.context));
+    bind(ReturnStatement.class, new ReturnStatementHandler(this.context));
+    bind(VariableInitializer.class, new VariableInitializerHandler(this.context));
+    bind(ObjectLiteral.class, new ObjectLiteralHandler(this.context));
+  }
+
+  /**
+   * Bind AST handler to scanner, wrapped by profiler measurement, if profiling is enabled, and by flight recorder rule
+   * events aggregation.
+   */
+  private void bind(Class<?> nodeClass, AstHandler handler)
+  {
+    Class<?> handlerClass = handler.getClass();
+    if(this.profiler != null) {
+      handler = new ProfiledHandler(handler, this.profiler);
+    }
+    RuleEventHandler ruleEventHandler = new RuleEventHandler(handler, handlerClass);
+    this.ruleEventHandlers.add(ruleEventHandler);
+    this.scanner.bind(nodeClass, ruleEventHandler);
+  }
+
+  /**
+   * Name sources by their path relative to given source path, instead of by file name, so that files with the same
+   * name from different packages have distinct source names. Path separator is always slash.
+   *
+   * @param sourcepath source path, null to name sources by file name.
+   */
+  public void setSourcepath(File sourcepath)
+  {
+    this.sourcepath = sourcepath != null ? sourcepath.toPath().toAbsolutePath().normalize() : null;
+  }
+
+  public Log getLog()
+  {
+    return this.log;
+  }
+
+  /**
+   * Get classes declared and referenced by last linted file.
+   *
+   * @return last file dependencies.
+   */
+  public Dependencies getDependencies()
+  {
+    return this.context.dependencies;
+  }
+
+  /**
+   * Use project classes while linting source files. All sessions of a project lint share the same registry.
+   *
+   * @param registry project classes registry, null to disable project mode.
+   */
+  public void setRegistry(ClassRegistry registry)
+  {
+    this.context.index = registry != null ? registry.getIndex() : null;
+    this.context.symbols.setRegistry(registry);
+  }
+
+  /**
+   * Lint source file and send warnings to session logger.
+   *
+   * @param jsFile source file.
+   * @throws IOException if source file reading fails.
+   */
+  public void lint(File jsFile) throws IOException
+  {
+    if(this.profiler != null) {
+      // read whole file first so that reading is measured apart from parsing
+      long wallTime = System.nanoTime();
+      long cpuTime = this.profiler.cpuTime();
+      String source = new String(Files.readAllBytes(jsFile.toPath()));
+      this.profiler.getPhase(Profiler.Phase.READ).add(System.nanoTime() - wallTime, this.profiler.cpuTime() - cpuTime);
+      lint(jsFile, source);
+      return;
+    }
+    Reader reader = new FileReader(jsFile);
+    try {
+      lint(jsFile, reader);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Lint source file content already read by caller, e.g. by concurrent scanning read stage.
+   *
+   * @param jsFile source file,
+   * @param source source file content.
+   * @throws IOException if source parsing fails.
+   */
+  public void lint(File jsFile, String source) throws IOException
+  {
+    lint(jsFile, new StringReader(source));
+  }
+
+  private void lint(File jsFile, Reader reader) throws IOException
+  {
+    // event classes are touched only while flight recorder is initialized since first event creation loads recorder
+    boolean recording = FLIGHT_RECORDER && FlightRecorder.isInitialized();
+    LintFileEvent fileEvent = null;
+    LintParseEvent parseEvent = null;
+    boolean ruleEvents = false;
+    if(recording) {
+      fileEvent = new LintFileEvent();
+      fileEvent.begin();
+      parseEvent = new LintParseEvent();
+      ruleEvents = new LintRuleEvent().isEnabled();
+    }
+    this.context.reset();
+    for(RuleEventHandler handler : this.ruleEventHandlers) {
+      handler.reset(ruleEvents);
+    }
+    long wallTime = 0;
+    long cpuTime = 0;
+    if(this.profiler != null) {
+      wallTime = System.nanoTime();
+      cpuTime = this.profiler.cpuTime();
+    }
+    if(recording) {
+      parseEvent.begin();
+    }
+    try {
+      this.scanner.parse(reader, getSourceName(jsFile));
+    }
+    catch(RhinoException e) {
+      if(recording) {
+        parseEvent.syntaxError = true;
+      }
+      this.context.writer.print(Warn.BAD_SYNTAX);
+    }
+    finally {
+      if(recording) {
+        commitEvents(jsFile, fileEvent, parseEvent, ruleEvents);
+      }
+      if(this.profiler != null) {
+        wallTime = System.nanoTime() - wallTime;
+        cpuTime = this.profiler.cpuTime() - cpuTime;
+        this.profiler.getPhase(Profiler.Phase.SCAN).add(wallTime, cpuTime);
+        this.profiler.addFile(jsFile, jsFile.length(), wallTime, cpuTime, this.context.writer.getWarnCount());
+      }
+    }
+  }
+
+  private String getSourceName(File jsFile)
+  {
+    if(this.sourcepath == null) return jsFile.getName();
+    Path path = jsFile.toPath().toAbsolutePath().normalize();
+    if(!path.startsWith(this.sourcepath)) return jsFile.getName();
+    return this.sourcepath.relativize(path).toString().replace(File.separatorChar, '/');
+  }
+
+  /**
+   * Commit flight recorder events of linted file, those enabled on recorder.
+   *
+   * @param jsFile source file,
+   * @param fileEvent file event, started before context reset,
+   * @param parseEvent parse event, started before scanner parse,
+   * @param ruleEvents true if rule events are enabled and handlers aggregated their invocations.
+   */
+  private void commitEvents(File jsFile, LintFileEvent fileEvent, LintParseEvent parseEvent, boolean ruleEvents)
+  {
+    String path = jsFile.getPath();
+    if(parseEvent.shouldCommit()) {
+      parseEvent.path = path;
+      parseEvent.commit();
+    }
+    if(ruleEvents) {
+      for(RuleEventHandler handler : this.ruleEventHandlers) {
+        handler.commit(path);
+      }
+    }
+    fileEvent.end();
+    if(fileEvent.shouldCommit()) {
+      fileEvent.path = path;
+      fileEvent.bytes = jsFile.length();
+      fileEvent.warnings = this.context.writer.getWarnCount();
+      fileEvent.commit();
+    }
+  }
+
+  private static boolean isFlightRecorderPresent()
+  {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder", false, LintSession.class.getClassLoader());
+      return true;
+    }
+    catch(ClassNotFoundException e) {
+      return false;
+    }
+    catch(LinkageError e) {
+      return false;
+    }
+  }
+}
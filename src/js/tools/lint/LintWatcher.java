@@ -0,0 +1,181 @@
+package js.tools.lint;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch source path directories and lint source files as soon as they are saved. Uses the warm lint engine of the
+ * {@link Lint} instance that created it, so only changed files are parsed and no directory walk is performed after
+ * initial directories registration. Directories created while watching are registered on the fly.
+ */
+final class LintWatcher
+{
+  /** Time to wait for related events after the first one, since editors usually save a file with several writes. */
+  private static final long SETTLE_TIME = 20;
+
+  private Lint lint;
+  private Path sourcepath;
+  private WatchService watchService;
+  /** Watched directories, mapped by their watch keys. */
+  private Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+
+  public LintWatcher(Lint lint, File sourcepath)
+  {
+    this.lint = lint;
+    this.sourcepath = sourcepath.toPath();
+  }
+
+  /**
+   * Watch source path till current thread is interrupted.
+   *
+   * @throws IOException if watch service fails or if waiting for changes is interrupted.
+   */
+  public void run() throws IOException
+  {
+    this.watchService = FileSystems.getDefault().newWatchService();
+    try {
+      register(this.sourcepath, null);
+      for(;;) {
+        Set<File> changedFiles = new LinkedHashSet<File>();
+        WatchKey key = this.watchService.take();
+        while(key != null) {
+          if(!processEvents(key, changedFiles)) {
+            // events lost; lint all files under the directory
+            register(this.directories.get(key), changedFiles);
+          }
+          if(!key.reset()) {
+            this.directories.remove(key);
+          }
+          key = this.watchService.poll(SETTLE_TIME, TimeUnit.MILLISECONDS);
+        }
+        lint(changedFiles);
+      }
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    finally {
+      this.watchService.close();
+      this.directories.clear();
+    }
+  }
+
+  /**
+   * Collect changed source files from key events and register new directories.
+   *
+   * @return false if key events overflowed.
+   */
+  private boolean processEvents(WatchKey key, Set<File> changedFiles) throws IOException
+  {
+    Path directory = this.directories.get(key);
+    if(directory == null) return true;
+    boolean complete = true;
+    for(WatchEvent<?> event : key.pollEvents()) {
+      if(event.kind() == OVERFLOW) {
+        complete = false;
+        continue;
+      }
+      Path path = directory.resolve((Path)event.context());
+      if(event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+        register(path, changedFiles);
+        continue;
+      }
+      File file = path.toFile();
+      if(this.lint.isSourceFile(file)) {
+        changedFiles.add(file);
+      }
+    }
+    return complete;
+  }
+
+  /**
+   * Register directory tree for watching, skipping hidden and excluded directories. If changed files set is not null
+   * source files from directory tree are added to it.
+   */
+  private void register(Path directory, final Set<File> changedFiles) throws IOException
+  {
+    if(directory == null) return;
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>()
+    {
+      @Override
+      public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) throws IOException
+      {
+        if(!LintWatcher.this.lint.isSourceDirectory(path.toFile())) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        WatchKey key = path.register(LintWatcher.this.watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        LintWatcher.this.directories.put(key, path);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path path, BasicFileAttributes attributes)
+      {
+        File file = path.toFile();
+        if(changedFiles != null && LintWatcher.this.lint.isSourceFile(file)) {
+          changedFiles.add(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Lint changed files. A failing file does not stop watching; failure is dumped and next files are processed. In
+   * project mode project index is updated first, so that cross file checks see changed declarations, and unchanged files
+   * depending on changed declarations are linted again after changed ones.
+   */
+  private void lint(Set<File> changedFiles)
+  {
+    List<File> files = new ArrayList<File>(changedFiles);
+    try {
+      files.addAll(this.lint.reindex(changedFiles));
+    }
+    catch(IOException e) {
+      e.printStackTrace();
+    }
+    for(File file : files) {
+      if(!file.exists()) {
+        // file was changed then deleted or renamed before events settled
+        continue;
+      }
+      try {
+        this.lint.lint(file);
+      }
+      catch(IOException e) {
+        e.printStackTrace();
+      }
+      catch(RuntimeException e) {
+        e.printStackTrace();
+      }
+    }
+    try {
+      this.lint.flush();
+    }
+    catch(IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -10,19 +10,74 @@ public class Main
   private static final String VERBOSE = "-verbose";
   private static final String SOURCEPATH = "-sourcepath";
   private static final String EXCLUDES = "-excludes";
+  private static final String THREADS = "-threads";
+  private static final String CACHE = "-cache";
+  private static final String WATCH = "-watch";
+  private static final String DAEMON = "-daemon";
+  private static final String CONNECT = "-connect";
+  private static final String PROJECT = "-project";
+  private static final String INDEX = "-index";
+  private static final String FORMAT = "-format";
+  private static final String REPORT = "-report";
+  private static final String PROFILE = "-profile";
 
   public static void main(String[] args) throws FileNotFoundException
   {
     try {
-      Lint lint = new Lint(getConfig(args));
-      lint.scan();
+      Config config = getConfig(args);
+      if(config.daemonPort != 0) {
+        new LintDaemon(config.daemonPort).run();
+        return;
+      }
+      if(config.connectPort != 0) {
+        new LintClient(config.connectPort).lint(getLintOptions(args));
+        return;
+      }
+      Lint lint = new Lint(config);
+      try {
+        lint.scan();
+        if(config.watch) {
+          lint.watch();
+        }
+      }
+      finally {
+        lint.close();
+      }
     }
     catch(Exception e) {
       e.printStackTrace();
     }
   }
 
-  private static Config getConfig(String[] args)
+  /**
+   * Test if option value is a file path, relative to current working directory.
+   *
+   * @param optionName option name.
+   * @return true if option value is a file path.
+   */
+  static boolean isPathOption(String optionName)
+  {
+    return SOURCEPATH.equals(optionName) || CACHE.equals(optionName) || INDEX.equals(optionName) || REPORT.equals(optionName)
+        || PROFILE.equals(optionName);
+  }
+
+  /**
+   * Get command line arguments with daemon connect option removed.
+   */
+  private static String[] getLintOptions(String[] args)
+  {
+    List<String> options = new ArrayList<String>();
+    for(int i = 0; i < args.length; ++i) {
+      if(CONNECT.equals(args[i])) {
+        ++i;
+        continue;
+      }
+      options.add(args[i]);
+    }
+    return options.toArray(new String[options.size()]);
+  }
+
+  static Config getConfig(String[] args)
   {
     List<List<String>> optionsList = new ArrayList<List<String>>();
     List<String> optionValues = null;
@@ -49,6 +104,46 @@ public class Main
         config.excludes = option.subList(1, option.size());
         continue;
       }
+      if(THREADS.equals(optionName)) {
+        config.threads = Integer.parseInt(option.get(1));
+        continue;
+      }
+      if(WATCH.equals(optionName)) {
+        config.watch = true;
+        continue;
+      }
+      if(PROJECT.equals(optionName)) {
+        config.project = true;
+        continue;
+      }
+      if(DAEMON.equals(optionName)) {
+        config.daemonPort = Integer.parseInt(option.get(1));
+        continue;
+      }
+      if(CONNECT.equals(optionName)) {
+        config.connectPort = Integer.parseInt(option.get(1));
+        continue;
+      }
+      if(CACHE.equals(optionName)) {
+        config.cache = new File(option.get(1));
+        continue;
+      }
+      if(INDEX.equals(optionName)) {
+        config.index = new File(option.get(1));
+        continue;
+      }
+      if(FORMAT.equals(optionName)) {
+        config.format = option.get(1);
+        continue;
+      }
+      if(REPORT.equals(optionName)) {
+        config.report = new File(option.get(1));
+        continue;
+      }
+      if(PROFILE.equals(optionName)) {
+        config.profile = new File(option.get(1));
+        continue;
+      }
     }
     return config;
   }
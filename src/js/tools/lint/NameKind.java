@@ -0,0 +1,285 @@
+package js.tools.lint;
+
+/**
+ * Single pass classifier for j(s)-script dotted names. A name is split into package segments, class segments and an
+ * optional member tail, then classified as:
+ * <pre>
+ *    comp.prj.Class                          class, qualified
+ *    comp.prj.Class.InnerClass               class
+ *    comp.prj.Class.prototype                prototype, static member
+ *    comp.prj.Class.prototype.method         prototype member
+ *    comp.prj.Class.InnerClass.staticMember  static member
+ *    comp.prj.Class.InnerClass.CONSTANT      static member, constant, class
+ *    CONSTANT                                constant
+ * </pre>
+ * Classification result is packed into an integer with kind flags on low bits and offset where owning class name ends
+ * on high bits, so that static {@link #classify(String)} does not allocate. For readability, the same result is
+ * available through a reusable instance, see {@link #scan(String)}.
+ * <p>
+ * Classification is equivalent with the regular expressions previously used by {@link Utils}.
+ */
+public final class NameKind
+{
+  public static final int QUALIFIED = 0x01;
+  public static final int CLASS = 0x02;
+  public static final int PROTOTYPE = 0x04;
+  public static final int PROTOTYPE_MEMBER = 0x08;
+  public static final int STATIC_MEMBER = 0x10;
+  public static final int CONSTANT = 0x20;
+
+  private static final int FLAGS_MASK = 0xFF;
+  private static final int OFFSET_SHIFT = 8;
+  private static final String PROTOTYPE_NAME = "prototype";
+
+  /**
+   * Classify name and return kind flags packed with owning class end offset. Class end offset is the index of the dot
+   * separating owning class from member, for static members, prototype, prototype members and qualified constants; for
+   * class only names it is name length and for unqualified constants is zero.
+   *
+   * @param name dotted name.
+   * @return packed kind, zero if name is not recognized.
+   */
+  public static int classify(String name)
+  {
+    int length = name.length();
+    int end = indexOfDot(name, 0);
+    if(!isPackageSegment(name, 0, end, 1)) {
+      if(end == length && isConstantSegment(name, 0, length)) {
+        return CONSTANT;
+      }
+      return 0;
+    }
+
+    int start;
+    do {
+      if(end == length) return 0;
+      start = end + 1;
+      end = indexOfDot(name, start);
+    }
+    while(isPackageSegment(name, start, end, 2));
+
+    int classes = 0;
+    int lastClassStart = 0;
+    int classEnd = 0;
+    while(isClassSegment(name, start, end)) {
+      ++classes;
+      lastClassStart = start;
+      classEnd = end;
+      if(end == length) break;
+      start = end + 1;
+      end = indexOfDot(name, start);
+    }
+    if(classes == 0) return 0;
+
+    if(classEnd == length) {
+      if(classes == 1) {
+        return pack(CLASS | QUALIFIED, length);
+      }
+      // last class segment is also a constant member of the previous one, e.g. comp.prj.Class.CONSTANT
+      if(isConstantSegment(name, lastClassStart, length)) {
+        return pack(CLASS | STATIC_MEMBER | CONSTANT, lastClassStart - 1);
+      }
+      return pack(CLASS, length);
+    }
+
+    if(end == length) {
+      int kind = 0;
+      boolean member = isMemberSegment(name, start, end);
+      boolean constant = isConstantSegment(name, start, end);
+      if(member || constant) kind |= STATIC_MEMBER;
+      if(constant) kind |= CONSTANT;
+      if(member && classes == 1) kind |= QUALIFIED;
+      if(isPrototypeSegment(name, start, end)) kind |= PROTOTYPE;
+      return kind == 0 ? 0 : pack(kind, classEnd);
+    }
+
+    if(!isPrototypeSegment(name, start, end)) return 0;
+    start = end + 1;
+    end = indexOfDot(name, start);
+    if(end != length || !isMemberSegment(name, start, end)) return 0;
+    return pack(PROTOTYPE_MEMBER, classEnd);
+  }
+
+  /**
+   * Test if packed kind has given flag.
+   *
+   * @param kind packed kind as returned by {@link #classify(String)},
+   * @param flag kind flag.
+   * @return true if flag is set.
+   */
+  public static boolean is(int kind, int flag)
+  {
+    return (kind & flag) != 0;
+  }
+
+  /**
+   * Get owning class end offset from packed kind.
+   *
+   * @param kind packed kind as returned by {@link #classify(String)}.
+   * @return class end offset.
+   */
+  public static int getClassEnd(int kind)
+  {
+    return kind >>> OFFSET_SHIFT;
+  }
+
+  private String name;
+  private int kind;
+
+  /**
+   * Classify given name and keep result on this instance. Returns this instance so that it can be reused by a handler
+   * for all names it process.
+   *
+   * @param name dotted name.
+   * @return this instance.
+   */
+  public NameKind scan(String name)
+  {
+    this.name = name;
+    this.kind = classify(name);
+    return this;
+  }
+
+  public String getName()
+  {
+    return this.name;
+  }
+
+  public boolean isQualified()
+  {
+    return (this.kind & QUALIFIED) != 0;
+  }
+
+  public boolean isClass()
+  {
+    return (this.kind & CLASS) != 0;
+  }
+
+  public boolean isPrototype()
+  {
+    return (this.kind & PROTOTYPE) != 0;
+  }
+
+  public boolean isPrototypeMember()
+  {
+    return (this.kind & PROTOTYPE_MEMBER) != 0;
+  }
+
+  public boolean isStaticMember()
+  {
+    return (this.kind & STATIC_MEMBER) != 0;
+  }
+
+  public boolean isConstant()
+  {
+    return (this.kind & CONSTANT) != 0;
+  }
+
+  /**
+   * Get the name of the class owning a member, prototype or qualified constant.
+   * <pre>
+   *    comp.prj.Class.InnerClass.staticMember -> comp.prj.Class.InnerClass
+   *    comp.prj.Class.prototype.method -> comp.prj.Class
+   * </pre>
+   *
+   * @return owning class name.
+   */
+  public String getClassName()
+  {
+    return this.name.substring(0, getClassEnd(this.kind));
+  }
+
+  /**
+   * Get member simple name, that is, the last name segment.
+   * <pre>
+   *    comp.prj.Class.InnerClass.staticMember -> staticMember
+   *    comp.prj.Class.CONSTANT -> CONSTANT
+   * </pre>
+   *
+   * @return member name.
+   */
+  public String getMemberName()
+  {
+    return this.name.substring(this.name.lastIndexOf('.') + 1);
+  }
+
+  private static int pack(int flags, int classEnd)
+  {
+    return (flags & FLAGS_MASK) | (classEnd << OFFSET_SHIFT);
+  }
+
+  private static int indexOfDot(String name, int start)
+  {
+    int i = name.indexOf('.', start);
+    return i == -1 ? name.length() : i;
+  }
+
+  /** Package segment: <code>[a-z][a-z0-9]*</code> with given minimum length. */
+  private static boolean isPackageSegment(String name, int start, int end, int minLength)
+  {
+    if(end - start < minLength) return false;
+    if(!isLower(name.charAt(start))) return false;
+    for(int i = start + 1; i < end; ++i) {
+      char c = name.charAt(i);
+      if(!isLower(c) && !isDigit(c)) return false;
+    }
+    return true;
+  }
+
+  /** Class segment: <code>[A-Z][a-zA-Z0-9_]*</code>. */
+  private static boolean isClassSegment(String name, int start, int end)
+  {
+    if(start >= end) return false;
+    if(!isUpper(name.charAt(start))) return false;
+    return isIdentifierPart(name, start + 1, end);
+  }
+
+  /** Member segment: <code>[a-z_][a-zA-Z0-9_]*</code>. */
+  private static boolean isMemberSegment(String name, int start, int end)
+  {
+    if(start >= end) return false;
+    char c = name.charAt(start);
+    if(!isLower(c) && c != '_') return false;
+    return isIdentifierPart(name, start + 1, end);
+  }
+
+  /** Constant segment: <code>[A-Z0-9_]+</code>. */
+  private static boolean isConstantSegment(String name, int start, int end)
+  {
+    if(start >= end) return false;
+    for(int i = start; i < end; ++i) {
+      char c = name.charAt(i);
+      if(!isUpper(c) && !isDigit(c) && c != '_') return false;
+    }
+    return true;
+  }
+
+  private static boolean isPrototypeSegment(String name, int start, int end)
+  {
+    return end - start == PROTOTYPE_NAME.length() && name.startsWith(PROTOTYPE_NAME, start);
+  }
+
+  private static boolean isIdentifierPart(String name, int start, int end)
+  {
+    for(int i = start; i < end; ++i) {
+      char c = name.charAt(i);
+      if(!isLower(c) && !isUpper(c) && !isDigit(c) && c != '_') return false;
+    }
+    return true;
+  }
+
+  private static boolean isLower(char c)
+  {
+    return c >= 'a' && c <= 'z';
+  }
+
+  private static boolean isUpper(char c)
+  {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  private static boolean isDigit(char c)
+  {
+    return c >= '0' && c <= '9';
+  }
+}
@@ -23,6 +23,7 @@ final class NewExpressionHandler extends AstHandler
 
     NewExpression newExpression = (NewExpression)node;
     String targetName = Names.getName(newExpression.getTarget());
+    this.context.dependencies.referenceClass(targetName);
     if(Utils.isStaticMemberName(targetName)) {
       writer.print(Warn.NOT_SUPPORTED, "Can't use new operator on member [%s].", targetName);
       return;
@@ -55,6 +55,6 @@ public class ObjectLiteralHandler extends AstHandler
     if(!(parent instanceof Assignment)) return false;
     Assignment assignment = (Assignment)parent;
     String leftName = Utils.getName(assignment.getLeft());
-    return Utils.isPrototype(leftName) || Utils.isClassName(leftName);
+    return NameKind.is(NameKind.classify(leftName), NameKind.PROTOTYPE | NameKind.CLASS);
   }
 }
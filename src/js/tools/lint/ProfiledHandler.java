@@ -0,0 +1,43 @@
+package js.tools.lint;
+
+import js.tools.commons.ast.AstHandler;
+import js.tools.commons.ast.Log;
+
+import org.mozilla.javascript.Node;
+
+/**
+ * AST handler decorator measuring wrapped handler invocations. Used only when profiling is enabled.
+ */
+final class ProfiledHandler extends AstHandler
+{
+  private AstHandler handler;
+  private Profiler profiler;
+  private Profiler.Counters counters;
+
+  public ProfiledHandler(AstHandler handler, Profiler profiler)
+  {
+    this.handler = handler;
+    this.profiler = profiler;
+    this.counters = profiler.getHandler(handler.getClass());
+  }
+
+  @Override
+  public void setLog(Log log)
+  {
+    super.setLog(log);
+    this.handler.setLog(log);
+  }
+
+  @Override
+  public void handle(Node node)
+  {
+    long wallTime = System.nanoTime();
+    long cpuTime = this.profiler.cpuTime();
+    try {
+      this.handler.handle(node);
+    }
+    finally {
+      this.counters.add(System.nanoTime() - wallTime, this.profiler.cpuTime() - cpuTime);
+    }
+  }
+}
@@ -0,0 +1,290 @@
+package js.tools.lint;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lint time profile: wall and CPU time per phase and per AST handler, with invocation counts, warnings count per code
+ * and slowest source files. Counters are updated concurrently by all worker threads without contention. Profiler
+ * exists only if profiling is enabled; with profiling disabled lint code sees a null profiler and handlers are not
+ * wrapped, so that the only cost left is a null test per file and per warning.
+ */
+final class Profiler
+{
+  /** Number of slowest files kept for report. */
+  private static final int SLOWEST_FILES = 20;
+
+  /** Lint phases. Handlers time is included in scan phase, that also covers Rhino parsing. */
+  enum Phase
+  {
+    READ, SCAN, REPORT
+  }
+
+  private ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private boolean cpuTimeSupported;
+  private long startTime = System.nanoTime();
+
+  private Counters[] phases = new Counters[Phase.values().length];
+  private ConcurrentMap<String, Counters> handlers = new ConcurrentHashMap<String, Counters>();
+  private LongAdder[] warns = new LongAdder[Warn.values().length];
+  private LongAdder files = new LongAdder();
+  /** Slowest files, fastest first so that it is the one to evict; guarded by its own lock. */
+  private PriorityQueue<FileProfile> slowestFiles = new PriorityQueue<FileProfile>(SLOWEST_FILES + 1, FileProfile.WALL_TIME);
+
+  public Profiler()
+  {
+    this.cpuTimeSupported = this.threads.isCurrentThreadCpuTimeSupported();
+    if(this.cpuTimeSupported && !this.threads.isThreadCpuTimeEnabled()) {
+      this.threads.setThreadCpuTimeEnabled(true);
+    }
+    for(int i = 0; i < this.phases.length; ++i) {
+      this.phases[i] = new Counters();
+    }
+    for(int i = 0; i < this.warns.length; ++i) {
+      this.warns[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Reset all counters and slowest files, and restart profile wall time. Should not be invoked while lint threads
+   * update counters; handlers counters are reset in place since profiled handlers keep them.
+   */
+  public void reset()
+  {
+    this.startTime = System.nanoTime();
+    for(Counters counters : this.phases) {
+      counters.reset();
+    }
+    for(Counters counters : this.handlers.values()) {
+      counters.reset();
+    }
+    for(LongAdder warn : this.warns) {
+      warn.reset();
+    }
+    this.files.reset();
+    synchronized(this.slowestFiles) {
+      this.slowestFiles.clear();
+    }
+  }
+
+  /**
+   * Get CPU time of current thread.
+   *
+   * @return CPU time, in nanoseconds, or 0 if not supported by virtual machine.
+   */
+  public long cpuTime()
+  {
+    return this.cpuTimeSupported ? this.threads.getCurrentThreadCpuTime() : 0;
+  }
+
+  public Counters getPhase(Phase phase)
+  {
+    return this.phases[phase.ordinal()];
+  }
+
+  /**
+   * Get counters of given AST handler class, shared by handler instances of all lint sessions.
+   *
+   * @param handlerClass handler class.
+   * @return handler counters.
+   */
+  public Counters getHandler(Class<?> handlerClass)
+  {
+    String name = handlerClass.getSimpleName();
+    Counters counters = this.handlers.get(name);
+    if(counters == null) {
+      this.handlers.putIfAbsent(name, new Counters());
+      counters = this.handlers.get(name);
+    }
+    return counters;
+  }
+
+  public void countWarn(Warn warn)
+  {
+    this.warns[warn.ordinal()].increment();
+  }
+
+  /**
+   * Record linted file scan, that is, parsing and checking, time.
+   *
+   * @param file source file,
+   * @param bytes file size,
+   * @param wallTime wall time, in nanoseconds,
+   * @param cpuTime CPU time, in nanoseconds,
+   * @param warnings number of warnings.
+   */
+  public void addFile(File file, long bytes, long wallTime, long cpuTime, int warnings)
+  {
+    this.files.increment();
+    synchronized(this.slowestFiles) {
+      if(this.slowestFiles.size() == SLOWEST_FILES && this.slowestFiles.peek().wallTime >= wallTime) return;
+      this.slowestFiles.add(new FileProfile(file, bytes, wallTime, cpuTime, warnings));
+      if(this.slowestFiles.size() > SLOWEST_FILES) {
+        this.slowestFiles.poll();
+      }
+    }
+  }
+
+  /**
+   * Write profile summary as JSON document. Times are in microseconds.
+   *
+   * @param file summary file.
+   * @throws IOException if write fails.
+   */
+  public void write(File file) throws IOException
+  {
+    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    try {
+      writer.write("{\n\"files\":");
+      writer.write(Long.toString(this.files.sum()));
+      writer.write(",\n\"wallTime\":");
+      writer.write(Long.toString(micros(System.nanoTime() - this.startTime)));
+      writer.write(",\n\"phases\":{");
+      Phase[] phases = Phase.values();
+      for(int i = 0; i < phases.length; ++i) {
+        writeCounters(writer, i > 0, phases[i].name().toLowerCase(), this.phases[i]);
+      }
+      writer.write("},\n\"handlers\":{");
+      boolean next = false;
+      for(Map.Entry<String, Counters> entry : this.handlers.entrySet()) {
+        writeCounters(writer, next, entry.getKey(), entry.getValue());
+        next = true;
+      }
+      writer.write("},\n\"warnings\":{");
+      next = false;
+      for(Warn warn : Warn.values()) {
+        long count = this.warns[warn.ordinal()].sum();
+        if(count == 0) continue;
+        writer.write(next ? ",\n" : "\n");
+        ReportSink.writeJsonString(writer, warn.name());
+        writer.write(':');
+        writer.write(Long.toString(count));
+        next = true;
+      }
+      writer.write("},\n\"slowestFiles\":[");
+      next = false;
+      for(FileProfile profile : getSlowestFiles()) {
+        writer.write(next ? ",\n{\"path\":" : "\n{\"path\":");
+        ReportSink.writeJsonString(writer, profile.file.getPath());
+        writer.write(",\"bytes\":" + profile.bytes);
+        writer.write(",\"wallTime\":" + micros(profile.wallTime));
+        writer.write(",\"cpuTime\":" + micros(profile.cpuTime));
+        writer.write(",\"warnings\":" + profile.warnings + "}");
+        next = true;
+      }
+      writer.write("]\n}\n");
+    }
+    finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Print slowest files table.
+   *
+   * @param stream output stream.
+   */
+  public void printSlowestFiles(PrintStream stream)
+  {
+    stream.println("   wall ms     cpu ms      bytes  warnings  file");
+    for(FileProfile profile : getSlowestFiles()) {
+      stream.println(String.format("%10.2f %10.2f %10d %9d  %s", profile.wallTime / 1E6, profile.cpuTime / 1E6, profile.bytes,
+          profile.warnings, profile.file.getPath()));
+    }
+  }
+
+  private List<FileProfile> getSlowestFiles()
+  {
+    List<FileProfile> files;
+    synchronized(this.slowestFiles) {
+      files = new ArrayList<FileProfile>(this.slowestFiles);
+    }
+    Collections.sort(files, Collections.reverseOrder(FileProfile.WALL_TIME));
+    return files;
+  }
+
+  private static void writeCounters(BufferedWriter writer, boolean next, String name, Counters counters) throws IOException
+  {
+    writer.write(next ? ",\n" : "\n");
+    ReportSink.writeJsonString(writer, name);
+    writer.write(":{\"count\":" + counters.count.sum());
+    writer.write(",\"wallTime\":" + micros(counters.wallTime.sum()));
+    writer.write(",\"cpuTime\":" + micros(counters.cpuTime.sum()) + "}");
+  }
+
+  private static long micros(long nanos)
+  {
+    return nanos / 1000;
+  }
+
+  /**
+   * Invocation count and accumulated wall and CPU time, in nanoseconds.
+   */
+  static final class Counters
+  {
+    private LongAdder count = new LongAdder();
+    private LongAdder wallTime = new LongAdder();
+    private LongAdder cpuTime = new LongAdder();
+
+    public void add(long wallTime, long cpuTime)
+    {
+      this.count.increment();
+      this.wallTime.add(wallTime);
+      this.cpuTime.add(cpuTime);
+    }
+
+    public long getCount()
+    {
+      return this.count.sum();
+    }
+
+    void reset()
+    {
+      this.count.reset();
+      this.wallTime.reset();
+      this.cpuTime.reset();
+    }
+  }
+
+  private static final class FileProfile
+  {
+    static final Comparator<FileProfile> WALL_TIME = new Comparator<FileProfile>()
+    {
+      @Override
+      public int compare(FileProfile left, FileProfile right)
+      {
+        return left.wallTime < right.wallTime ? -1 : left.wallTime == right.wallTime ? 0 : 1;
+      }
+    };
+
+    File file;
+    long bytes;
+    long wallTime;
+    long cpuTime;
+    int warnings;
+
+    FileProfile(File file, long bytes, long wallTime, long cpuTime, int warnings)
+    {
+      this.file = file;
+      this.bytes = bytes;
+      this.wallTime = wallTime;
+      this.cpuTime = cpuTime;
+      this.warnings = warnings;
+    }
+  }
+}
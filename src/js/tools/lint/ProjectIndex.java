@@ -0,0 +1,134 @@
+package js.tools.lint;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Classes declared by all source files of a project, with their superclass and instance fields. Built by the
+ * declaration pass of project mode, see {@link Lint}, before any file is checked, so that checks on a file can see
+ * classes declared by files not yet processed.
+ * <p>
+ * Every source file is indexed into its own index and file indexes are merged in scanning order; on conflicting
+ * declarations the first one wins. Index is not thread safe while built but is safe for concurrent reads once merged.
+ * Merged index can be persisted by {@link ProjectIndexFile}.
+ */
+final class ProjectIndex implements ClassIndex
+{
+  private Map<String, ClassDeclaration> classes = new HashMap<String, ClassDeclaration>();
+
+  /**
+   * Record class declaration, that is, class constructor assignment.
+   *
+   * @param className class qualified name.
+   */
+  public void declareClass(String className)
+  {
+    getDeclaration(className).declared = true;
+  }
+
+  /**
+   * Record superclass link created by <code>$extends</code> pseudo-operator. First link wins.
+   *
+   * @param className subclass qualified name,
+   * @param superClassName superclass qualified name.
+   */
+  public void setSuperClass(String className, String superClassName)
+  {
+    ClassDeclaration declaration = getDeclaration(className);
+    if(declaration.superClassName == null) {
+      declaration.superClassName = superClassName;
+    }
+  }
+
+  /**
+   * Record instance field declared by class constructor. First declaration wins.
+   *
+   * @param className class qualified name,
+   * @param fieldName field name,
+   * @param type field type name, possible null.
+   */
+  public void addField(String className, String fieldName, String type)
+  {
+    Map<String, String> fields = getDeclaration(className).fields;
+    if(!fields.containsKey(fieldName)) {
+      fields.put(fieldName, type);
+    }
+  }
+
+  /**
+   * Merge declarations from given index into this one. Declarations already present on this index are kept.
+   *
+   * @param index index to merge, usually of a single source file.
+   */
+  public void merge(ProjectIndex index)
+  {
+    for(Map.Entry<String, ClassDeclaration> entry : index.classes.entrySet()) {
+      String className = entry.getKey();
+      ClassDeclaration declaration = entry.getValue();
+      if(declaration.declared) {
+        declareClass(className);
+      }
+      if(declaration.superClassName != null) {
+        setSuperClass(className, declaration.superClassName);
+      }
+      for(Map.Entry<String, String> field : declaration.fields.entrySet()) {
+        addField(className, field.getKey(), field.getValue());
+      }
+    }
+  }
+
+  @Override
+  public boolean hasClass(String className)
+  {
+    return this.classes.containsKey(className);
+  }
+
+  @Override
+  public boolean isDeclared(String className)
+  {
+    ClassDeclaration declaration = this.classes.get(className);
+    return declaration != null && declaration.declared;
+  }
+
+  @Override
+  public String getSuperClassName(String className)
+  {
+    ClassDeclaration declaration = this.classes.get(className);
+    return declaration != null ? declaration.superClassName : null;
+  }
+
+  @Override
+  public Map<String, String> getFields(String className)
+  {
+    ClassDeclaration declaration = this.classes.get(className);
+    if(declaration == null) {
+      return Collections.emptyMap();
+    }
+    return Collections.unmodifiableMap(declaration.fields);
+  }
+
+  public Collection<String> getClassNames()
+  {
+    return Collections.unmodifiableSet(this.classes.keySet());
+  }
+
+  private ClassDeclaration getDeclaration(String className)
+  {
+    ClassDeclaration declaration = this.classes.get(className);
+    if(declaration == null) {
+      declaration = new ClassDeclaration();
+      this.classes.put(className, declaration);
+    }
+    return declaration;
+  }
+
+  private static class ClassDeclaration
+  {
+    boolean declared;
+    String superClassName;
+    Map<String, String> fields = new LinkedHashMap<String, String>();
+  }
+}
@@ -0,0 +1,397 @@
+package js.tools.lint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Project index persisted on disk and memory mapped. Class lookups are answered straight from mapped file, through a
+ * hash table of class records, so that loading is constant time and declarations do not live on heap. File layout, all
+ * offsets absolute and all values big endian:
+ * <pre>
+ *    header    magic, version, sources count, sources offset, classes count, slots count, slots offset, file length
+ *    strings   string table: chars count followed by UTF-16 chars; a string is referenced by its offset, -1 for null
+ *    sources   per source file: path, size, last modified, then file declarations as class records
+ *    classes   merged class records: name, declared flag, superclass name, fields count, field name and type pairs
+ *    slots     open addressing hash table: class name hash and class record offset, 0 for empty slot
+ * </pre>
+ * Per source declarations are kept so that only changed files are scanned again on next run; see
+ * {@link #getSourceIndex(Source)}. Updated index is written to a temporary file and renamed over the old one, so that an
+ * interrupted save does not leave a truncated file and readers still mapping the old file are not disturbed.
+ * <p>
+ * Mapped index is read only and uses only absolute buffer reads, so it is safe for concurrent lookups.
+ */
+final class ProjectIndexFile implements ClassIndex
+{
+  /** File format version, to be incremented on every change of file format or of declarations collecting. */
+  private static final int VERSION = 2;
+  private static final int MAGIC = 0x4A535049;
+  private static final int HEADER_SIZE = 32;
+  private static final int NULL = -1;
+
+  private ByteBuffer buffer;
+  private int sourcesCount;
+  private int sourcesOffset;
+  private int slotsCount;
+  private int slotsOffset;
+  /** Source file records offsets mapped by source path, loaded on first use. */
+  private Map<String, Integer> sources;
+
+  private ProjectIndexFile(ByteBuffer buffer)
+  {
+    this.buffer = buffer;
+    this.sourcesCount = buffer.getInt(8);
+    this.sourcesOffset = buffer.getInt(12);
+    this.slotsCount = buffer.getInt(20);
+    this.slotsOffset = buffer.getInt(24);
+  }
+
+  /**
+   * Map index file. Missing, stale or corrupt file is not an error; index should be rebuilt and saved.
+   *
+   * @param file index file.
+   * @return mapped index or null if file is missing or not valid.
+   * @throws IOException if file mapping fails.
+   */
+  public static ProjectIndexFile load(File file) throws IOException
+  {
+    if(!file.exists() || file.length() < HEADER_SIZE || file.length() > Integer.MAX_VALUE) return null;
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    ByteBuffer buffer;
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    finally {
+      randomAccessFile.close();
+    }
+    if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(28) != buffer.capacity()) return null;
+    return new ProjectIndexFile(buffer);
+  }
+
+  /**
+   * Test if index was saved for exactly the given source files, in the same order and unchanged since saved.
+   *
+   * @param sources source files, in scanning order.
+   * @return true if index is current.
+   */
+  public boolean isCurrent(List<Source> sources)
+  {
+    if(sources.size() != this.sourcesCount) return false;
+    int offset = this.sourcesOffset;
+    for(Source source : sources) {
+      if(!equals(this.buffer.getInt(offset), source.path) || !source.isUnchanged(this.buffer, offset + 4)) return false;
+      offset = skipClassRecords(offset + 20);
+    }
+    return true;
+  }
+
+  /**
+   * Get declarations stored for source file, provided file was not changed since index was saved.
+   *
+   * @param source source file.
+   * @return source file declarations or null if file is not indexed or was changed.
+   */
+  public ProjectIndex getSourceIndex(Source source)
+  {
+    if(this.sources == null) {
+      Map<String, Integer> sources = new HashMap<String, Integer>();
+      int offset = this.sourcesOffset;
+      for(int i = 0; i < this.sourcesCount; ++i) {
+        sources.put(getString(this.buffer.getInt(offset)), offset);
+        offset = skipClassRecords(offset + 20);
+      }
+      this.sources = sources;
+    }
+    Integer offset = this.sources.get(source.path);
+    if(offset == null || !source.isUnchanged(this.buffer, offset + 4)) return null;
+
+    ProjectIndex index = new ProjectIndex();
+    int classesCount = this.buffer.getInt(offset + 20);
+    int record = offset + 24;
+    for(int i = 0; i < classesCount; ++i) {
+      String className = getString(this.buffer.getInt(record));
+      if(this.buffer.getInt(record + 4) != 0) {
+        index.declareClass(className);
+      }
+      String superClassName = getString(this.buffer.getInt(record + 8));
+      if(superClassName != null) {
+        index.setSuperClass(className, superClassName);
+      }
+      int fieldsCount = this.buffer.getInt(record + 12);
+      for(int j = 0; j < fieldsCount; ++j) {
+        int field = record + 16 + j * 8;
+        index.addField(className, getString(this.buffer.getInt(field)), getString(this.buffer.getInt(field + 4)));
+      }
+      record += 16 + fieldsCount * 8;
+    }
+    return index;
+  }
+
+  @Override
+  public boolean hasClass(String className)
+  {
+    return findClass(className) != NULL;
+  }
+
+  @Override
+  public boolean isDeclared(String className)
+  {
+    int record = findClass(className);
+    return record != NULL && this.buffer.getInt(record + 4) != 0;
+  }
+
+  @Override
+  public String getSuperClassName(String className)
+  {
+    int record = findClass(className);
+    return record != NULL ? getString(this.buffer.getInt(record + 8)) : null;
+  }
+
+  @Override
+  public Map<String, String> getFields(String className)
+  {
+    int record = findClass(className);
+    if(record == NULL) {
+      return Collections.emptyMap();
+    }
+    int fieldsCount = this.buffer.getInt(record + 12);
+    Map<String, String> fields = new LinkedHashMap<String, String>();
+    for(int i = 0; i < fieldsCount; ++i) {
+      int field = record + 16 + i * 8;
+      fields.put(getString(this.buffer.getInt(field)), getString(this.buffer.getInt(field + 4)));
+    }
+    return fields;
+  }
+
+  /**
+   * Find class record by linear probing on slots table.
+   *
+   * @return class record offset or {@link #NULL} if class is not indexed.
+   */
+  private int findClass(String className)
+  {
+    if(this.slotsCount == 0) return NULL;
+    int hash = className.hashCode();
+    int mask = this.slotsCount - 1;
+    for(int i = hash & mask;; i = (i + 1) & mask) {
+      int slot = this.slotsOffset + i * 8;
+      int record = this.buffer.getInt(slot + 4);
+      if(record == 0) return NULL;
+      if(this.buffer.getInt(slot) == hash && equals(this.buffer.getInt(record), className)) return record;
+    }
+  }
+
+  private int skipClassRecords(int offset)
+  {
+    int classesCount = this.buffer.getInt(offset);
+    offset += 4;
+    for(int i = 0; i < classesCount; ++i) {
+      offset += 16 + this.buffer.getInt(offset + 12) * 8;
+    }
+    return offset;
+  }
+
+  /**
+   * Compare string from string table with given one, without decoding it.
+   */
+  private boolean equals(int offset, String string)
+  {
+    if(this.buffer.getInt(offset) != string.length()) return false;
+    for(int i = 0; i < string.length(); ++i) {
+      if(this.buffer.getChar(offset + 4 + i * 2) != string.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  private String getString(int offset)
+  {
+    if(offset == NULL) return null;
+    char[] chars = new char[this.buffer.getInt(offset)];
+    for(int i = 0; i < chars.length; ++i) {
+      chars[i] = this.buffer.getChar(offset + 4 + i * 2);
+    }
+    return new String(chars);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // writer
+
+  /**
+   * Save project index together with declarations of every source file.
+   *
+   * @param file index file,
+   * @param sources source files with their declarations, in scanning order,
+   * @param index project index merged from source files declarations.
+   * @throws IOException if writing index file fails.
+   */
+  public static void save(File file, List<Source> sources, ProjectIndex index) throws IOException
+  {
+    Strings strings = new Strings();
+    for(Source source : sources) {
+      strings.add(source.path);
+      strings.addAll(source.index);
+    }
+    strings.addAll(index);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream stream = new DataOutputStream(bytes);
+    stream.write(new byte[HEADER_SIZE]);
+    strings.write(stream);
+
+    int sourcesOffset = stream.size();
+    for(Source source : sources) {
+      stream.writeInt(strings.get(source.path));
+      stream.writeLong(source.size);
+      stream.writeLong(source.lastModified);
+      writeClassRecords(stream, strings, source.index, null);
+    }
+
+    Map<String, Integer> records = new LinkedHashMap<String, Integer>();
+    writeClassRecords(stream, strings, index, records);
+    int slotsCount = 1;
+    while(slotsCount < records.size() * 2) {
+      slotsCount <<= 1;
+    }
+    int[] slots = new int[slotsCount * 2];
+    for(Map.Entry<String, Integer> record : records.entrySet()) {
+      int hash = record.getKey().hashCode();
+      int i = hash & (slotsCount - 1);
+      while(slots[i * 2 + 1] != 0) {
+        i = (i + 1) & (slotsCount - 1);
+      }
+      slots[i * 2] = hash;
+      slots[i * 2 + 1] = record.getValue();
+    }
+    int slotsOffset = stream.size();
+    for(int slot : slots) {
+      stream.writeInt(slot);
+    }
+    stream.close();
+
+    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putInt(8, sources.size());
+    buffer.putInt(12, sourcesOffset);
+    buffer.putInt(16, records.size());
+    buffer.putInt(20, slotsCount);
+    buffer.putInt(24, slotsOffset);
+    buffer.putInt(28, buffer.capacity());
+
+    File tempFile = new File(file.getPath() + ".tmp");
+    OutputStream fileStream = new FileOutputStream(tempFile);
+    try {
+      fileStream.write(buffer.array());
+    }
+    finally {
+      fileStream.close();
+    }
+    if(!tempFile.renameTo(file)) {
+      file.delete();
+      if(!tempFile.renameTo(file)) {
+        throw new IOException(String.format("Fail to rename index file |%s| to |%s|.", tempFile, file));
+      }
+    }
+  }
+
+  /**
+   * Write classes count followed by class records. If records map is not null it is filled with record offsets mapped
+   * by class name.
+   */
+  private static void writeClassRecords(DataOutputStream stream, Strings strings, ProjectIndex index, Map<String, Integer> records)
+      throws IOException
+  {
+    stream.writeInt(index.getClassNames().size());
+    for(String className : index.getClassNames()) {
+      if(records != null) {
+        records.put(className, stream.size());
+      }
+      stream.writeInt(strings.get(className));
+      stream.writeInt(index.isDeclared(className) ? 1 : 0);
+      stream.writeInt(strings.get(index.getSuperClassName(className)));
+      Map<String, String> fields = index.getFields(className);
+      stream.writeInt(fields.size());
+      for(Map.Entry<String, String> field : fields.entrySet()) {
+        stream.writeInt(strings.get(field.getKey()));
+        stream.writeInt(strings.get(field.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Source file state, taken before scanning it, and its declarations.
+   */
+  static class Source
+  {
+    String path;
+    long size;
+    long lastModified;
+    /** Source file declarations, set after file is scanned or loaded from index file. */
+    ProjectIndex index;
+
+    Source(File file)
+    {
+      this.path = file.getAbsolutePath();
+      this.size = file.length();
+      this.lastModified = file.lastModified();
+    }
+
+    boolean isUnchanged(ByteBuffer buffer, int offset)
+    {
+      return buffer.getLong(offset) == this.size && buffer.getLong(offset + 8) == this.lastModified;
+    }
+  }
+
+  /**
+   * String table under construction, with strings offsets relative to file start.
+   */
+  private static class Strings
+  {
+    private Map<String, Integer> offsets = new LinkedHashMap<String, Integer>();
+    private int size;
+
+    void add(String string)
+    {
+      if(string == null || this.offsets.containsKey(string)) return;
+      this.offsets.put(string, HEADER_SIZE + this.size);
+      this.size += 4 + string.length() * 2;
+    }
+
+    void addAll(ProjectIndex index)
+    {
+      for(String className : index.getClassNames()) {
+        add(className);
+        add(index.getSuperClassName(className));
+        for(Map.Entry<String, String> field : index.getFields(className).entrySet()) {
+          add(field.getKey());
+          add(field.getValue());
+        }
+      }
+    }
+
+    int get(String string)
+    {
+      return string != null ? this.offsets.get(string) : NULL;
+    }
+
+    void write(DataOutputStream stream) throws IOException
+    {
+      for(String string : this.offsets.keySet()) {
+        stream.writeInt(string.length());
+        stream.writeChars(string);
+      }
+    }
+  }
+}
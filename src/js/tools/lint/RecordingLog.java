@@ -0,0 +1,266 @@
+package js.tools.lint;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import js.tools.commons.ast.Log;
+
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.Token;
+
+/**
+ * Log recording warnings of a single source file, to be replayed later on the real logger. Used by concurrent scanning
+ * so that every file warnings reach configured logger in one piece and in scanning order. Only logger state that is
+ * effective at warning time is recorded, that is, current source and line number; nodes themselves are not retained so
+ * that recorded file AST can be garbage collected.
+ *
+ * @author Iulian Rotaru
+ */
+final class RecordingLog extends DiagnosticLog
+{
+  private List<Record> records = new ArrayList<Record>();
+  private String source;
+  private boolean sourceDirty;
+  private int lineno;
+  private boolean linenoDirty;
+  private Throwable failure;
+
+  @Override
+  public void setCurrentSource(String source)
+  {
+    this.source = source;
+    this.sourceDirty = true;
+  }
+
+  @Override
+  public void setCurrentNode(Node node)
+  {
+    this.lineno = node.getLineno();
+    this.linenoDirty = true;
+  }
+
+  @Override
+  public void print(char c)
+  {
+    this.records.add(new Record(Record.PRINT, String.valueOf(c)));
+  }
+
+  @Override
+  public void print(String message)
+  {
+    this.records.add(new Record(Record.PRINT, message));
+  }
+
+  @Override
+  public void println(String message)
+  {
+    this.records.add(new Record(Record.PRINTLN, message));
+  }
+
+  @Override
+  public void warn(String format, Object... args)
+  {
+    flush();
+    this.records.add(new Record(Record.WARN, format, args));
+  }
+
+  @Override
+  public void report(Warn warn, Object... args)
+  {
+    flush();
+    this.records.add(new Record(warn, args));
+  }
+
+  /**
+   * Record current source and line number, if changed since last warning. Must be invoked after file processing so that
+   * state left on real logger after replay is the same as after serial processing.
+   */
+  public void flush()
+  {
+    if(this.sourceDirty) {
+      this.records.add(new Record(Record.SOURCE, this.source));
+      this.sourceDirty = false;
+    }
+    if(this.linenoDirty) {
+      this.records.add(new Record(this.lineno));
+      this.linenoDirty = false;
+    }
+  }
+
+  /**
+   * Move recorded warnings and failure, if any, to a new log and reset this one. This allows a long lived log, bound to
+   * a lint session, to record source files one by one.
+   *
+   * @return log with warnings recorded since last drain.
+   */
+  public RecordingLog drain()
+  {
+    flush();
+    RecordingLog log = new RecordingLog();
+    log.records = this.records;
+    log.failure = this.failure;
+    this.records = new ArrayList<Record>();
+    this.failure = null;
+    return log;
+  }
+
+  public void setFailure(Throwable failure)
+  {
+    this.failure = failure;
+  }
+
+  public Throwable getFailure()
+  {
+    return this.failure;
+  }
+
+  /**
+   * Replay recorded warnings on given logger, in the order they were produced.
+   *
+   * @param log target logger.
+   */
+  public void replay(Log log)
+  {
+    for(Record record : this.records) {
+      switch(record.type) {
+      case Record.SOURCE:
+        log.setCurrentSource(record.text);
+        break;
+
+      case Record.LINENO:
+        log.setCurrentNode(new Node(Token.EMPTY, record.lineno));
+        break;
+
+      case Record.PRINT:
+        log.print(record.text);
+        break;
+
+      case Record.PRINTLN:
+        log.println(record.text);
+        break;
+
+      case Record.WARN:
+        log.warn(record.text, record.args);
+        break;
+
+      case Record.CODE:
+        if(log instanceof DiagnosticLog) {
+          ((DiagnosticLog)log).report(record.warn, record.args);
+          break;
+        }
+        Diagnostic diagnostic = new Diagnostic(record.warn, record.args);
+        log.warn(diagnostic.getFormat(), diagnostic.getFormatArgs());
+        break;
+      }
+    }
+  }
+
+  /**
+   * Write recorded warnings to given output, for incremental lint cache. Warning arguments are written as strings since
+   * warning formats use only string conversions. Failure is not written; failed files are not cached.
+   *
+   * @param output data output.
+   * @throws IOException if write fails.
+   */
+  public void write(DataOutput output) throws IOException
+  {
+    output.writeInt(this.records.size());
+    for(Record record : this.records) {
+      output.writeByte(record.type);
+      if(record.type == Record.LINENO) {
+        output.writeInt(record.lineno);
+        continue;
+      }
+      writeString(output, record.type == Record.CODE ? record.warn.name() : record.text);
+      if(record.type == Record.WARN || record.type == Record.CODE) {
+        output.writeInt(record.args.length);
+        for(Object arg : record.args) {
+          writeString(output, arg != null ? arg.toString() : null);
+        }
+      }
+    }
+  }
+
+  /**
+   * Read warnings written by {@link #write(DataOutput)}.
+   *
+   * @param input data input.
+   * @return log with recorded warnings, ready for replay.
+   * @throws IOException if read fails.
+   */
+  public static RecordingLog read(DataInput input) throws IOException
+  {
+    RecordingLog log = new RecordingLog();
+    int count = input.readInt();
+    for(int i = 0; i < count; ++i) {
+      int type = input.readByte();
+      if(type == Record.LINENO) {
+        log.records.add(new Record(input.readInt()));
+        continue;
+      }
+      String text = readString(input);
+      Object[] args = new Object[0];
+      if(type == Record.WARN || type == Record.CODE) {
+        args = new Object[input.readInt()];
+        for(int j = 0; j < args.length; ++j) {
+          args[j] = readString(input);
+        }
+      }
+      log.records.add(type == Record.CODE ? new Record(Warn.valueOf(text), args) : new Record(type, text, args));
+    }
+    return log;
+  }
+
+  private static void writeString(DataOutput output, String string) throws IOException
+  {
+    output.writeBoolean(string != null);
+    if(string != null) {
+      output.writeUTF(string);
+    }
+  }
+
+  private static String readString(DataInput input) throws IOException
+  {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  private static class Record
+  {
+    static final int SOURCE = 0;
+    static final int LINENO = 1;
+    static final int PRINT = 2;
+    static final int PRINTLN = 3;
+    static final int WARN = 4;
+    /** Warning by code, with unformatted arguments. */
+    static final int CODE = 5;
+
+    int type;
+    Warn warn;
+    String text;
+    Object[] args;
+    int lineno;
+
+    Record(int lineno)
+    {
+      this.type = LINENO;
+      this.lineno = lineno;
+    }
+
+    Record(Warn warn, Object[] args)
+    {
+      this.type = CODE;
+      this.warn = warn;
+      this.args = args;
+    }
+
+    Record(int type, String text, Object... args)
+    {
+      this.type = type;
+      this.text = text;
+      this.args = args;
+    }
+  }
+}
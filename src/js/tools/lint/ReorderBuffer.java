@@ -0,0 +1,121 @@
+package js.tools.lint;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded reorder buffer restoring submission order of results completed out of order. Producer reserves a sequence
+ * number for every task, workers complete tasks in any order and a single consumer takes results in sequence order,
+ * each as soon as it and all results before it are completed.
+ * <p>
+ * Buffer is a ring of slots indexed by sequence number; reservation blocks while the window of reserved but not yet
+ * taken results is full, so that completed results waiting for a slow earlier task do not accumulate without bound.
+ *
+ * @param <T> result type.
+ */
+final class ReorderBuffer<T>
+{
+  private Object[] slots;
+  /** Sequence number of next result to take. */
+  private long next;
+  /** Sequence number of next reservation. */
+  private long reserved;
+  private boolean closed;
+
+  private ReentrantLock lock = new ReentrantLock();
+  private Condition notFull = this.lock.newCondition();
+  private Condition ready = this.lock.newCondition();
+
+  /**
+   * Create reorder buffer.
+   *
+   * @param capacity maximum number of reserved results not yet taken.
+   */
+  public ReorderBuffer(int capacity)
+  {
+    this.slots = new Object[capacity];
+  }
+
+  /**
+   * Reserve sequence number for next result, blocking while buffer is full.
+   *
+   * @return reserved sequence number.
+   * @throws InterruptedException if waiting is interrupted.
+   */
+  public long reserve() throws InterruptedException
+  {
+    this.lock.lockInterruptibly();
+    try {
+      while(this.reserved - this.next == this.slots.length) {
+        this.notFull.await();
+      }
+      return this.reserved++;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Complete reserved result.
+   *
+   * @param sequence reserved sequence number,
+   * @param result result, not null.
+   */
+  public void complete(long sequence, T result)
+  {
+    assert result != null;
+    this.lock.lock();
+    try {
+      this.slots[(int)(sequence % this.slots.length)] = result;
+      if(sequence == this.next) {
+        this.ready.signal();
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * No more reservations will be made; consumer gets null after all reserved results are taken.
+   */
+  public void close()
+  {
+    this.lock.lock();
+    try {
+      this.closed = true;
+      this.ready.signal();
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Take next result in sequence order, waiting for it to be completed.
+   *
+   * @return next result or null if buffer is closed and all results were taken.
+   * @throws InterruptedException if waiting is interrupted.
+   */
+  @SuppressWarnings("unchecked")
+  public T take() throws InterruptedException
+  {
+    this.lock.lockInterruptibly();
+    try {
+      int index = (int)(this.next % this.slots.length);
+      while(this.slots[index] == null) {
+        if(this.closed && this.next == this.reserved) return null;
+        this.ready.await();
+      }
+      T result = (T)this.slots[index];
+      this.slots[index] = null;
+      ++this.next;
+      this.notFull.signal();
+      return result;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package js.tools.lint;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base of machine readable report writers. Diagnostics are written as they are reported, through a buffered character
+ * stream, so that report memory does not depend on warnings count; document header is written on creation and footer
+ * on {@link #close()}. Report file with <code>.gz</code> extension is gzip compressed.
+ */
+abstract class ReportSink implements DiagnosticSink
+{
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String GZIP_EXT = ".gz";
+  private static final String CHARSET = "UTF-8";
+
+  /** Lint tool name, as written on report documents. */
+  protected static final String TOOL_NAME = "js-lint";
+
+  protected SourceFiles files;
+  protected BufferedWriter writer;
+  /** Report file stream; standard output is flushed but not closed. */
+  private OutputStream stream;
+  private boolean closeStream;
+
+  /**
+   * Create report writer for given format.
+   *
+   * @param format report format, one of <code>json</code>, <code>sarif</code> or <code>checkstyle</code>,
+   * @param file report file, null for standard output,
+   * @param files source files table, resolving diagnostics file ids.
+   * @return report writer.
+   * @throws IOException if report file creation fails.
+   * @throws IllegalArgumentException if format is not supported.
+   */
+  public static ReportSink create(String format, File file, SourceFiles files) throws IOException
+  {
+    if(!"json".equals(format) && !"sarif".equals(format) && !"checkstyle".equals(format)) {
+      throw new IllegalArgumentException("Unsupported report format: " + format);
+    }
+    OutputStream stream = System.out;
+    if(file != null) {
+      stream = new FileOutputStream(file);
+      if(file.getName().endsWith(GZIP_EXT)) {
+        stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+      }
+    }
+    if("json".equals(format)) return new JsonLinesSink(files, stream, file != null);
+    if("sarif".equals(format)) return new SarifSink(files, stream, file != null);
+    return new CheckstyleSink(files, stream, file != null);
+  }
+
+  protected ReportSink(SourceFiles files, OutputStream stream, boolean closeStream) throws IOException
+  {
+    this.files = files;
+    this.writer = new BufferedWriter(new OutputStreamWriter(stream, CHARSET), BUFFER_SIZE);
+    this.stream = stream;
+    this.closeStream = closeStream;
+  }
+
+  @Override
+  public void report(Diagnostic diagnostic)
+  {
+    try {
+      write(diagnostic);
+    }
+    catch(IOException e) {
+      throw new LintException(e);
+    }
+  }
+
+  /**
+   * Free text has no place on a structured report document so it goes to standard error, as console log would print
+   * it.
+   */
+  @Override
+  public void print(String text)
+  {
+    System.err.print(text);
+  }
+
+  /**
+   * Write diagnostic on report.
+   *
+   * @param diagnostic diagnostic.
+   * @throws IOException if write fails.
+   */
+  protected abstract void write(Diagnostic diagnostic) throws IOException;
+
+  /**
+   * Write document footer, if any. Default implementation does nothing.
+   *
+   * @throws IOException if write fails.
+   */
+  protected void writeFooter() throws IOException
+  {
+  }
+
+  @Override
+  public void flush() throws IOException
+  {
+    this.writer.flush();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    writeFooter();
+    if(this.closeStream) {
+      this.writer.close();
+      return;
+    }
+    this.writer.flush();
+    if(this.stream instanceof GZIPOutputStream) {
+      ((GZIPOutputStream)this.stream).finish();
+    }
+  }
+
+  /**
+   * Write string as a JSON string literal, quoted and escaped.
+   *
+   * @param string string to write, null for JSON null.
+   * @throws IOException if write fails.
+   */
+  protected void writeJsonString(String string) throws IOException
+  {
+    writeJsonString(this.writer, string);
+  }
+
+  /**
+   * Write string as a JSON string literal on given writer.
+   *
+   * @param writer character stream,
+   * @param string string to write, null for JSON null.
+   * @throws IOException if write fails.
+   */
+  static void writeJsonString(java.io.Writer writer, String string) throws IOException
+  {
+    if(string == null) {
+      writer.write("null");
+      return;
+    }
+    writer.write('"');
+    for(int i = 0, length = string.length(); i < length; ++i) {
+      char c = string.charAt(i);
+      switch(c) {
+      case '"':
+        writer.write("\\\"");
+        break;
+
+      case '\\':
+        writer.write("\\\\");
+        break;
+
+      case '\n':
+        writer.write("\\n");
+        break;
+
+      case '\r':
+        writer.write("\\r");
+        break;
+
+      case '\t':
+        writer.write("\\t");
+        break;
+
+      default:
+        if(c < 0x20) {
+          writer.write(String.format("\\u%04x", (int)c));
+        }
+        else {
+          writer.write(c);
+        }
+      }
+    }
+    writer.write('"');
+  }
+
+  /**
+   * Write string as XML attribute value, without quotes. Characters not allowed by XML are dropped.
+   *
+   * @param string string to write, null for empty value.
+   * @throws IOException if write fails.
+   */
+  protected void writeXmlAttribute(String string) throws IOException
+  {
+    if(string == null) return;
+    BufferedWriter writer = this.writer;
+    for(int i = 0, length = string.length(); i < length; ++i) {
+      char c = string.charAt(i);
+      switch(c) {
+      case '&':
+        writer.write("&amp;");
+        break;
+
+      case '<':
+        writer.write("&lt;");
+        break;
+
+      case '>':
+        writer.write("&gt;");
+        break;
+
+      case '"':
+        writer.write("&quot;");
+        break;
+
+      case '\n':
+        writer.write("&#10;");
+        break;
+
+      case '\r':
+        writer.write("&#13;");
+        break;
+
+      case '\t':
+        writer.write("&#9;");
+        break;
+
+      default:
+        if(c >= 0x20 && c != 0xFFFE && c != 0xFFFF) {
+          writer.write(c);
+        }
+      }
+    }
+  }
+}
@@ -85,7 +85,7 @@ public class ReturnStatementHandler extends AstHandler
       this.writer.print(Warn.BAD_RETURN);
       return;
     }
-    if(!this.returnType.isKindOf(this.declaredReturnType)) {
+    if(!this.returnType.isKindOf(this.declaredReturnType, this.context.symbols)) {
       this.writer.print(Warn.BAD_RETURN);
     }
   }
@@ -135,7 +135,7 @@ public class ReturnStatementHandler extends AstHandler
     // force return type to variable type; warn if variable declaration is missing
     String variableName = Utils.getName(this.returnValue);
     if(UNDEFINED.equals(variableName)) return false;
-    JsVariable variable = this.enclosingFunction.getVariable(variableName);
+    JsVariable variable = this.context.getVariable(this.returnValue, variableName);
     if(variable == null) {
       this.writer.print(Warn.NO_VAR_DECL);
       return true;
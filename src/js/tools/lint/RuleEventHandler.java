@@ -0,0 +1,78 @@
+package js.tools.lint;
+
+import js.tools.commons.ast.AstHandler;
+import js.tools.commons.ast.Log;
+
+import org.mozilla.javascript.Node;
+
+/**
+ * AST handler decorator aggregating wrapped handler invocations of current source file, for {@link LintRuleEvent}.
+ * Recording is enabled per file, by lint session, only if rule event is enabled on flight recorder; otherwise decorator
+ * only forwards nodes.
+ */
+final class RuleEventHandler extends AstHandler
+{
+  private AstHandler handler;
+  private Class<?> handlerClass;
+  private boolean enabled;
+  private int nodeCount;
+  private long handlerTime;
+
+  public RuleEventHandler(AstHandler handler, Class<?> handlerClass)
+  {
+    this.handler = handler;
+    this.handlerClass = handlerClass;
+  }
+
+  @Override
+  public void setLog(Log log)
+  {
+    super.setLog(log);
+    this.handler.setLog(log);
+  }
+
+  /**
+   * Start new source file.
+   *
+   * @param enabled true if invocations should be recorded.
+   */
+  public void reset(boolean enabled)
+  {
+    this.enabled = enabled;
+    this.nodeCount = 0;
+    this.handlerTime = 0;
+  }
+
+  @Override
+  public void handle(Node node)
+  {
+    if(!this.enabled) {
+      this.handler.handle(node);
+      return;
+    }
+    long startTime = System.nanoTime();
+    try {
+      this.handler.handle(node);
+    }
+    finally {
+      this.handlerTime += System.nanoTime() - startTime;
+      ++this.nodeCount;
+    }
+  }
+
+  /**
+   * Commit rule event for current source file, if recording and if handler was invoked.
+   *
+   * @param path source file path.
+   */
+  public void commit(String path)
+  {
+    if(!this.enabled || this.nodeCount == 0) return;
+    LintRuleEvent event = new LintRuleEvent();
+    event.path = path;
+    event.handlerClass = this.handlerClass;
+    event.nodeCount = this.nodeCount;
+    event.handlerTime = this.handlerTime;
+    event.commit();
+  }
+}
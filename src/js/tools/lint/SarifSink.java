@@ -0,0 +1,90 @@
+package js.tools.lint;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * SARIF 2.1.0 report with a single run. Run header, including all lint rules, is written on creation, results are
+ * streamed as they are reported and results array and document are closed by footer. Result locations are URIs
+ * relative to lint source path, with <code>SRCROOT</code> base id.
+ */
+final class SarifSink extends ReportSink
+{
+  private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+
+  private boolean firstResult = true;
+  /** Id and URI of last written source; diagnostics come in source order so URI is encoded once per source. */
+  private int fileId = -1;
+  private String uri;
+
+  public SarifSink(SourceFiles files, OutputStream stream, boolean closeStream) throws IOException
+  {
+    super(files, stream, closeStream);
+    this.writer.write("{\"$schema\":\"" + SCHEMA + "\",\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{\"name\":\"");
+    this.writer.write(TOOL_NAME);
+    this.writer.write("\",\"rules\":[");
+    Warn[] warns = Warn.values();
+    for(int i = 0; i < warns.length; ++i) {
+      if(i > 0) {
+        this.writer.write(',');
+      }
+      this.writer.write("\n{\"id\":");
+      writeJsonString(warns[i].name());
+      this.writer.write(",\"shortDescription\":{\"text\":");
+      String message = warns[i].getMessage();
+      writeJsonString(message != null ? message : warns[i].name());
+      this.writer.write("}}");
+    }
+    this.writer.write("]}},\"results\":[");
+  }
+
+  @Override
+  protected void write(Diagnostic diagnostic) throws IOException
+  {
+    if(!this.firstResult) {
+      this.writer.write(',');
+    }
+    this.firstResult = false;
+    this.writer.write("\n{");
+    if(diagnostic.getWarn() != null) {
+      this.writer.write("\"ruleId\":");
+      writeJsonString(diagnostic.getWarn().name());
+      this.writer.write(',');
+    }
+    this.writer.write("\"level\":\"warning\",\"message\":{\"text\":");
+    writeJsonString(diagnostic.getMessage());
+    this.writer.write("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+    writeJsonString(getUri(diagnostic.getFileId()));
+    this.writer.write(",\"uriBaseId\":\"SRCROOT\"},\"region\":{\"startLine\":");
+    this.writer.write(Integer.toString(Math.max(diagnostic.getLine(), 1)));
+    if(diagnostic.getColumn() > 0) {
+      this.writer.write(",\"startColumn\":");
+      this.writer.write(Integer.toString(diagnostic.getColumn()));
+    }
+    this.writer.write("}}}]}");
+  }
+
+  private String getUri(int fileId)
+  {
+    if(fileId != this.fileId) {
+      this.fileId = fileId;
+      String name = this.files.getName(fileId);
+      try {
+        this.uri = name != null ? new URI(null, null, name, null).toASCIIString() : null;
+      }
+      catch(URISyntaxException e) {
+        // e.g. colon on first path segment; write source name as it is
+        this.uri = name;
+      }
+    }
+    return this.uri;
+  }
+
+  @Override
+  protected void writeFooter() throws IOException
+  {
+    this.writer.write("\n]}]}\n");
+  }
+}
@@ -0,0 +1,76 @@
+package js.tools.lint;
+
+import java.io.IOException;
+
+import org.mozilla.javascript.Node;
+
+/**
+ * Log adapter creating diagnostics from current source and node and sending them to a diagnostic sink.
+ */
+final class SinkLog extends DiagnosticLog
+{
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  private SourceFiles files;
+  private DiagnosticSink sink;
+  private int fileId = -1;
+  private int line;
+
+  public SinkLog(SourceFiles files, DiagnosticSink sink)
+  {
+    this.files = files;
+    this.sink = sink;
+  }
+
+  @Override
+  public void setCurrentSource(String source)
+  {
+    this.fileId = this.files.getId(source);
+  }
+
+  @Override
+  public void setCurrentNode(Node node)
+  {
+    this.line = node.getLineno();
+  }
+
+  @Override
+  public void print(char c)
+  {
+    this.sink.print(String.valueOf(c));
+  }
+
+  @Override
+  public void print(String message)
+  {
+    this.sink.print(message);
+  }
+
+  @Override
+  public void println(String message)
+  {
+    this.sink.print(message + LINE_SEPARATOR);
+  }
+
+  @Override
+  public void warn(String format, Object... args)
+  {
+    this.sink.report(new Diagnostic(null, format, this.fileId, this.line, 0, args));
+  }
+
+  @Override
+  public void report(Warn warn, Object... args)
+  {
+    this.sink.report(new Diagnostic(warn, null, this.fileId, this.line, 0, args));
+  }
+
+  public void flush() throws IOException
+  {
+    this.sink.flush();
+  }
+
+  public void close() throws IOException
+  {
+    this.sink.close();
+  }
+}
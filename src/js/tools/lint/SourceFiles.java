@@ -0,0 +1,70 @@
+package js.tools.lint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of source names seen by a lint engine, mapping them to compact ids stored by diagnostics. Source name is the
+ * source path relative to lint source path, so that files with the same name from different packages have distinct
+ * ids; reports write it whereas console writes only the file name. Ids are assigned in first seen order. Table is
+ * queried once per source file, not per warning, so plain locking is enough.
+ */
+final class SourceFiles
+{
+  private Map<String, Integer> ids = new HashMap<String, Integer>();
+  private List<String> names = new ArrayList<String>();
+  private List<String> fileNames = new ArrayList<String>();
+
+  /**
+   * Get id of source name, assigning a new one on first request.
+   *
+   * @param name source name, possible null.
+   * @return source id.
+   */
+  public synchronized int getId(String name)
+  {
+    Integer id = this.ids.get(name);
+    if(id == null) {
+      id = this.names.size();
+      this.ids.put(name, id);
+      this.names.add(name);
+      this.fileNames.add(getFileName(name));
+    }
+    return id;
+  }
+
+  /**
+   * Get source name by id.
+   *
+   * @param id source id, negative if no source was set.
+   * @return source name, null if id is negative.
+   */
+  public synchronized String getName(int id)
+  {
+    return id < 0 ? null : this.names.get(id);
+  }
+
+  /**
+   * Get source file name, that is, source name last path segment, by id.
+   *
+   * @param id source id, negative if no source was set.
+   * @return source file name, null if id is negative.
+   */
+  public synchronized String getFileName(int id)
+  {
+    return id < 0 ? null : this.fileNames.get(id);
+  }
+
+  /**
+   * Get file name from source name, that is, its last path segment.
+   *
+   * @param name source name, slash separated, possible null.
+   * @return source file name, null if source name is null.
+   */
+  public static String getFileName(String name)
+  {
+    return name != null ? name.substring(name.lastIndexOf('/') + 1) : null;
+  }
+}
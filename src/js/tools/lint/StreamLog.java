@@ -0,0 +1,62 @@
+package js.tools.lint;
+
+import java.io.PrintWriter;
+
+import js.tools.commons.ast.Log;
+
+import org.mozilla.javascript.Node;
+
+/**
+ * Log writing warnings to a character stream, with the same format as console log. Used by lint daemon to stream
+ * warnings back to client; writer is changed on every request and warnings count restarts.
+ */
+final class StreamLog extends Log
+{
+  private PrintWriter writer;
+  private int warnCount;
+  private String source;
+  private int lineno;
+
+  public void setWriter(PrintWriter writer)
+  {
+    this.writer = writer;
+    this.warnCount = 0;
+  }
+
+  @Override
+  public void setCurrentSource(String source)
+  {
+    // console format shows file name only
+    this.source = SourceFiles.getFileName(source);
+  }
+
+  @Override
+  public void setCurrentNode(Node node)
+  {
+    this.lineno = node.getLineno();
+  }
+
+  @Override
+  public void print(char c)
+  {
+    this.writer.print(c);
+  }
+
+  @Override
+  public void print(String message)
+  {
+    this.writer.print(message);
+  }
+
+  @Override
+  public void println(String message)
+  {
+    this.writer.println(message);
+  }
+
+  @Override
+  public void warn(String format, Object... args)
+  {
+    this.writer.println(String.format("[%d][%s:%d] %s", ++this.warnCount, this.source, this.lineno, String.format(format, args)));
+  }
+}
@@ -12,14 +12,18 @@ import org.mozilla.javascript.ast.SwitchStatement;
 
 final class SwitchStatementHandler extends AstHandler
 {
+  private Context context;
+
   public SwitchStatementHandler(Context context)
   {
-    // TODO Auto-generated constructor stub
+    this.context = context;
   }
 
   @Override
   public void handle(Node node)
   {
+    Writer writer = this.context.writer;
+    writer.setLog(this.log);
     SwitchStatement switchStatement = (SwitchStatement)node;
 
     boolean defaultPresent = false;
@@ -41,12 +45,12 @@ final class SwitchStatementHandler extends AstHandler
       }
 
       if(!breakPresent) {
-        this.log.warn("Switch clause with no break statement.");
+        writer.print(Warn.SWITCH_NO_BREAK);
       }
     }
 
     if(!defaultPresent) {
-      this.log.warn("Switch statement with missing default clause.");
+      writer.print(Warn.SWITCH_NO_DEFAULT);
     }
   }
 }
@@ -0,0 +1,137 @@
+package js.tools.lint;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classes and functions discovered while linting. A symbol table is owned by lint {@link Context} and lives as long as
+ * the file being processed; it is not shared between threads, so independent lint sessions can run in the same JVM.
+ * <p>
+ * In project mode symbol table is backed by the {@link ClassRegistry} shared by all sessions: a class known by project
+ * index is created with its superclass and fields from other source files already in place.
+ */
+final class SymbolTable
+{
+  private Map<String, JsClass> classes = new HashMap<String, JsClass>();
+  private Map<String, JsFunction> functions = new HashMap<String, JsFunction>();
+  private ClassHierarchy hierarchy = new ClassHierarchy();
+  /** Project classes registry, null if not in project mode. */
+  private ClassRegistry registry;
+  /** Current file dependencies, recording classes looked up on registry; possible null. */
+  private Dependencies dependencies;
+
+  public void setRegistry(ClassRegistry registry)
+  {
+    this.registry = registry;
+  }
+
+  public void setDependencies(Dependencies dependencies)
+  {
+    this.dependencies = dependencies;
+  }
+
+  /**
+   * Get class with given qualified name, creating it if not already registered.
+   *
+   * @param qualifiedName class qualified name.
+   * @return class, never null.
+   */
+  public JsClass getJsClass(String qualifiedName)
+  {
+    JsClass jsClass = this.classes.get(qualifiedName);
+    if(jsClass == null) {
+      jsClass = new JsClass(qualifiedName, this.hierarchy);
+      this.classes.put(qualifiedName, jsClass);
+      if(this.registry != null) {
+        ClassRegistry.ClassRecord record = forName(qualifiedName);
+        if(record != null) {
+          importClass(jsClass, record);
+        }
+      }
+    }
+    return jsClass;
+  }
+
+  /**
+   * Get registered class, without creating it. In project mode a class known by project index is created on the fly.
+   *
+   * @param qualifiedName class qualified name.
+   * @return class or null if not registered.
+   */
+  public JsClass findJsClass(String qualifiedName)
+  {
+    JsClass jsClass = this.classes.get(qualifiedName);
+    if(jsClass == null && this.registry != null && forName(qualifiedName) != null) {
+      jsClass = getJsClass(qualifiedName);
+    }
+    return jsClass;
+  }
+
+  public Collection<JsClass> getJsClasses()
+  {
+    return this.classes.values();
+  }
+
+  /**
+   * Get function with given qualified name, creating it if not already registered.
+   *
+   * @param qualifiedName function qualified name, empty for anonymous functions.
+   * @return function, never null.
+   */
+  public JsFunction getJsFunction(String qualifiedName)
+  {
+    JsFunction jsFunction = this.functions.get(qualifiedName);
+    if(jsFunction == null) {
+      jsFunction = new JsFunction(qualifiedName);
+      this.functions.put(qualifiedName, jsFunction);
+    }
+    return jsFunction;
+  }
+
+  /**
+   * Import class fields and superclass from shared class record. Superclass chain is followed through records linked
+   * by registry, so that only the first session importing a class looks its superclass up on registry map. Class is
+   * already registered so that a circular hierarchy does not recurse forever.
+   */
+  private void importClass(JsClass jsClass, ClassRegistry.ClassRecord record)
+  {
+    for(Map.Entry<String, String> field : record.getFields().entrySet()) {
+      jsClass.addIndexedField(field.getKey(), field.getValue());
+    }
+    ClassRegistry.ClassRecord superRecord = record.getSuperClass();
+    if(superRecord == null) {
+      // superclass linked from a project file may be not declared by any project file, e.g. a library class
+      if(record.getSuperClassName() != null) {
+        jsClass.setSuperClass(getJsClass(record.getSuperClassName()));
+      }
+      return;
+    }
+    String superClassName = superRecord.getName();
+    JsClass superClass = this.classes.get(superClassName);
+    if(superClass == null) {
+      superClass = new JsClass(superClassName, this.hierarchy);
+      this.classes.put(superClassName, superClass);
+      if(this.dependencies != null) {
+        this.dependencies.lookupClass(superClassName);
+      }
+      importClass(superClass, superRecord);
+    }
+    jsClass.setSuperClass(superClass);
+  }
+
+  private ClassRegistry.ClassRecord forName(String className)
+  {
+    if(this.dependencies != null) {
+      this.dependencies.lookupClass(className);
+    }
+    return this.registry.forName(className);
+  }
+
+  public void clear()
+  {
+    this.classes.clear();
+    this.functions.clear();
+    this.hierarchy = new ClassHierarchy();
+  }
+}
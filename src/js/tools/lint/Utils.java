@@ -10,16 +10,7 @@ import org.mozilla.javascript.ast.PropertyGet;
 
 final class Utils
 {
-  private static final Pattern QUALIFIED_NAME_PATTERN = Pattern
-      .compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*\\.[A-Z][a-zA-Z0-9_]*(?:\\.(?:[a-z_][a-zA-Z0-9_]*)|(?:[A-Z0-9_]+))?$");
-  private static final Pattern CLASS_NAME_PATTERN = Pattern.compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(\\.[A-Z][a-zA-Z0-9_]*)+$");
   private static final Pattern NATIVE_CLASS_NAME_PATTERN = Pattern.compile("^[A-Z][a-zA-Z]*$");
-  private static final Pattern PROTOTYPE_PATTERN = Pattern.compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(\\.[A-Z][a-zA-Z0-9_]*)+\\.prototype$");
-  private static final Pattern PROTOTYPE_MEMBER_PATTERN = Pattern
-      .compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(\\.[A-Z][a-zA-Z0-9_]*)+\\.prototype\\.[a-z_][a-zA-Z0-9_]*$");
-  private static final Pattern CONSTANT_NAME_PATTERN = Pattern.compile("^(?:[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(?:\\.[A-Z][a-zA-Z0-9_]*)+\\.)?[A-Z0-9_]+$");
-  private static final Pattern STATIC_MEMBER_NAME_PATTERN = Pattern
-      .compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(?:\\.[A-Z][a-zA-Z0-9_]*)+(?:\\.(?:(?:[a-z_][a-zA-Z0-9_]*)|(?:[A-Z0-9_]+)))$");
   private static final String PROTOTYPE = ".prototype";
 
   public static String getName(AstNode node)
@@ -29,12 +20,12 @@ final class Utils
 
   public static boolean isQualifiedName(String name)
   {
-    return QUALIFIED_NAME_PATTERN.matcher(name).find();
+    return NameKind.is(NameKind.classify(name), NameKind.QUALIFIED);
   }
 
   public static boolean isClassName(String name)
   {
-    return CLASS_NAME_PATTERN.matcher(name).find();
+    return NameKind.is(NameKind.classify(name), NameKind.CLASS);
   }
 
   public static boolean isNativeClassName(String name)
@@ -51,7 +42,7 @@ final class Utils
    */
   public static boolean isPrototype(String name)
   {
-    return PROTOTYPE_PATTERN.matcher(name).find();
+    return NameKind.is(NameKind.classify(name), NameKind.PROTOTYPE);
   }
 
   /**
@@ -71,7 +62,7 @@ final class Utils
 
   public static boolean isPrototypeMember(String name)
   {
-    return PROTOTYPE_MEMBER_PATTERN.matcher(name).find();
+    return NameKind.is(NameKind.classify(name), NameKind.PROTOTYPE_MEMBER);
   }
 
   public static String getPrototypeMemberClassName(String name)
@@ -92,7 +83,7 @@ final class Utils
    */
   public static boolean isStaticMemberName(String name)
   {
-    return STATIC_MEMBER_NAME_PATTERN.matcher(name).find();
+    return NameKind.is(NameKind.classify(name), NameKind.STATIC_MEMBER);
   }
 
   /**
@@ -129,7 +120,7 @@ final class Utils
 
   public static boolean isConstantName(String name)
   {
-    return CONSTANT_NAME_PATTERN.matcher(name).find();
+    return NameKind.is(NameKind.classify(name), NameKind.CONSTANT);
   }
 
   public static boolean isInstanceMember(AstNode node)
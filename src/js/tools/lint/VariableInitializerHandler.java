@@ -24,7 +24,6 @@ public class VariableInitializerHandler extends AstHandler
     Writer writer = this.context.writer;
     writer.setLog(this.log);
     VariableInitializer variableInitializer = (VariableInitializer)node;
-    AstNode target = variableInitializer.getTarget();
     AstNode initializer = variableInitializer.getInitializer();
 
     // bad function definition: var fn = function(){}
@@ -38,6 +37,7 @@ public class VariableInitializerHandler extends AstHandler
     JsType jsType = null;
 
     if(initializer instanceof PropertyGet) {
+      this.context.dependencies.referenceClass(Utils.getName(initializer));
       PropertyGet propertyGet = (PropertyGet)initializer;
       if(propertyGet.getTarget().getType() == Token.THIS) {
         String fieldName = Utils.getName(propertyGet.getProperty());
@@ -51,7 +51,6 @@ public class VariableInitializerHandler extends AstHandler
     }
 
     if(jsType == null) jsType = JsType.getInstance(initializer);
-    JsFunction function = this.context.getEnclosingFunction(variableInitializer);
-    function.addVariable(Utils.getName(target), jsType);
+    this.context.addVariable(variableInitializer, jsType);
   }
 }
@@ -0,0 +1,58 @@
+package js.tools.lint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Variables declared in a lexical scope, with link to enclosing scope table. Lookup is hashed on every scope level and
+ * continues with enclosing scopes, so that a variable declared in an inner scope shadows the outer one with the same
+ * name.
+ */
+final class VariableTable
+{
+  private VariableTable parent;
+  private Map<String, JsVariable> variables = new HashMap<String, JsVariable>();
+
+  /**
+   * Create variables table for a scope nested into given parent.
+   *
+   * @param parent enclosing scope table, null for global scope.
+   */
+  public VariableTable(VariableTable parent)
+  {
+    this.parent = parent;
+  }
+
+  public VariableTable getParent()
+  {
+    return this.parent;
+  }
+
+  /**
+   * Declare variable in this scope. If scope already has a variable with the same name this method does nothing, that
+   * is, first declaration wins.
+   *
+   * @param name variable name,
+   * @param jsType variable type.
+   */
+  public void addVariable(String name, JsType jsType)
+  {
+    if(this.variables.containsKey(name)) return;
+    this.variables.put(name, new JsVariable(name, jsType));
+  }
+
+  /**
+   * Get variable visible from this scope, searching this scope first then enclosing ones.
+   *
+   * @param name variable name.
+   * @return variable or null.
+   */
+  public JsVariable getVariable(String name)
+  {
+    for(VariableTable table = this; table != null; table = table.parent) {
+      JsVariable variable = table.variables.get(name);
+      if(variable != null) return variable;
+    }
+    return null;
+  }
+}
@@ -5,7 +5,7 @@ import java.util.Map;
 
 enum Warn
 {
-  BAD_SYNTAX, GLOBAL_ASSIGN, CONST_ASSIGN, NOT_SUPPORTED, BAD_ARGS_COUNT, BAD_CLASS_PACKAGE, BAD_CLASS_NAME, BAD_ARG_TYPE, BAD_RETURN, BAD_BODY_DEF, BAD_FUNC_DEF, BAD_RVALUE, BAD_THIS, CTOR_RETURN, CTOR_STATIC, CTOR_ANNOTATION, BAD_APIDOC, NO_APIDOC, NO_PACKAGE_DEF, NO_CLASS_DEF, NO_FIELD_DECL, NO_VAR_DECL, NO_SUPER, OVERLOAD;
+  BAD_SYNTAX, GLOBAL_ASSIGN, CONST_ASSIGN, NOT_SUPPORTED, BAD_ARGS_COUNT, BAD_CLASS_PACKAGE, BAD_CLASS_NAME, BAD_ARG_TYPE, BAD_RETURN, BAD_BODY_DEF, BAD_FUNC_DEF, BAD_RVALUE, BAD_THIS, CTOR_RETURN, CTOR_STATIC, CTOR_ANNOTATION, BAD_APIDOC, NO_APIDOC, NO_PACKAGE_DEF, NO_CLASS_DEF, NO_FIELD_DECL, NO_VAR_DECL, NO_SUPER, OVERLOAD, SWITCH_NO_BREAK, SWITCH_NO_DEFAULT;
 
   public String getMessage()
   {
@@ -38,5 +38,7 @@ enum Warn
     messages.put(NO_VAR_DECL, "Missing variable declaration");
     messages.put(NO_SUPER, "Missing super class");
     messages.put(OVERLOAD, "Member overloading");
+    messages.put(SWITCH_NO_BREAK, "Switch clause with no break statement");
+    messages.put(SWITCH_NO_DEFAULT, "Switch statement with missing default clause");
   }
 }
@@ -1,7 +1,6 @@
 package js.tools.lint;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import js.tools.commons.ast.Log;
@@ -10,6 +9,10 @@ final class Writer
 {
   private Log log;
   private List<Warn> suppress = new ArrayList<Warn>();
+  /** Profiler counting warnings, null if profiling is disabled. */
+  private Profiler profiler;
+  /** Warnings printed since last reset, for lint profile and flight recorder events. */
+  private int warnCount;
 
   public Writer()
   {
@@ -20,6 +23,27 @@ final class Writer
     this.log = log;
   }
 
+  public void setProfiler(Profiler profiler)
+  {
+    this.profiler = profiler;
+  }
+
+  public void reset()
+  {
+    this.suppress.clear();
+    this.warnCount = 0;
+  }
+
+  /**
+   * Get number of warnings printed since last reset.
+   *
+   * @return warnings count.
+   */
+  public int getWarnCount()
+  {
+    return this.warnCount;
+  }
+
   public void addSuppress(String warn)
   {
     try {
@@ -31,12 +55,16 @@ final class Writer
   public void print(Warn warn, Object... args)
   {
     if(this.suppress.contains(warn)) return;
-    String message = warn.getMessage();
-    if(args.length == 0) {
-      this.log.warn(message + ".");
+    ++this.warnCount;
+    if(this.profiler != null) {
+      this.profiler.countWarn(warn);
     }
-    else {
-      this.log.warn(message + ". " + args[0], Arrays.copyOfRange(args, 1, args.length));
+    if(this.log instanceof DiagnosticLog) {
+      // message formatting is left to diagnostic sink
+      ((DiagnosticLog)this.log).report(warn, args);
+      return;
     }
+    Diagnostic diagnostic = new Diagnostic(warn, args);
+    this.log.warn(diagnostic.getFormat(), diagnostic.getFormatArgs());
   }
 }
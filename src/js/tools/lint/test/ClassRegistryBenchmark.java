@@ -0,0 +1,208 @@
+package js.tools.lint.test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import js.tools.commons.util.Classes;
+
+/**
+ * Measure class registry lookup throughput from 1 to 32 threads, against a registry keeping records on a map guarded by
+ * a global lock. Every run uses a fresh registry so that class records creation and superclass linking are measured
+ * too. Both registries are invoked through the same reflective call path, after a warm up pass; thread counts are run
+ * in a different random order on every round and the best rate of every thread count is reported. Run it as a
+ * standalone program; it is not a unit test since timings depend on host and on available cores.
+ */
+public class ClassRegistryBenchmark
+{
+  private static final int CLASSES = 10000;
+  private static final int LOOKUPS = 200000;
+  private static final int ROUNDS = 5;
+  private static final int MAX_THREADS = 32;
+
+  public static void main(String[] args) throws Exception
+  {
+    Object index = Classes.newInstance("js.tools.lint.ProjectIndex");
+    String[] classNames = new String[CLASSES];
+    for(int i = 0; i < CLASSES; ++i) {
+      classNames[i] = "comp.prj.Class" + i;
+      Classes.invoke(index, "declareClass", classNames[i]);
+      Classes.invoke(index, "setSuperClass", classNames[i], "comp.prj.Class" + (i / 2));
+    }
+    Class<?> registryClass = Class.forName("js.tools.lint.ClassRegistry");
+    Class<?> recordClass = Class.forName("js.tools.lint.ClassRegistry$ClassRecord");
+    Registry registry = new Registry(registryClass, recordClass, index);
+    Registry lockedRegistry = new Registry(LockedRegistry.class, LockedRegistry.Record.class, index);
+
+    List<Integer> threadCounts = new ArrayList<Integer>();
+    for(int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+      threadCounts.add(threads);
+    }
+    // warm up both call paths before measuring
+    run(MAX_THREADS, classNames, registry);
+    run(MAX_THREADS, classNames, lockedRegistry);
+
+    Map<Integer, Double> registryRates = new HashMap<Integer, Double>();
+    Map<Integer, Double> lockedRates = new HashMap<Integer, Double>();
+    Random random = new Random();
+    for(int i = 0; i < ROUNDS; ++i) {
+      Collections.shuffle(threadCounts, random);
+      for(int threads : threadCounts) {
+        // alternate which registry runs first, so that neither one always runs on a just collected heap
+        if(random.nextBoolean()) {
+          best(registryRates, threads, run(threads, classNames, registry));
+          best(lockedRates, threads, run(threads, classNames, lockedRegistry));
+        }
+        else {
+          best(lockedRates, threads, run(threads, classNames, lockedRegistry));
+          best(registryRates, threads, run(threads, classNames, registry));
+        }
+      }
+    }
+
+    System.out.println("threads   registry   locked map   (million lookups/s)");
+    for(int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+      System.out.println(String.format("%7d   %8.2f   %10.2f", threads, registryRates.get(threads), lockedRates.get(threads)));
+    }
+  }
+
+  private static void best(Map<Integer, Double> rates, int threads, double rate)
+  {
+    Double bestRate = rates.get(threads);
+    if(bestRate == null || rate > bestRate) {
+      rates.put(threads, rate);
+    }
+  }
+
+  /**
+   * Run lookups on given threads count, on a fresh registry, and return throughput, in million lookups per second.
+   */
+  private static double run(int threads, final String[] classNames, Registry registry) throws Exception
+  {
+    final Object instance = registry.newInstance();
+    final Registry lookup = registry;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+      for(int i = 0; i < threads; ++i) {
+        final int seed = i;
+        tasks.add(executor.submit(new Callable<Integer>()
+        {
+          @Override
+          public Integer call() throws Exception
+          {
+            start.await();
+            int sink = 0;
+            int k = seed * 7919;
+            for(int j = 0; j < LOOKUPS; ++j) {
+              k = (k * 1103515245 + 12345) & 0x7FFFFFFF;
+              if(lookup.lookup(instance, classNames[k % classNames.length]) != null) ++sink;
+            }
+            return sink;
+          }
+        }));
+      }
+      long startTime = System.nanoTime();
+      start.countDown();
+      for(Future<Integer> task : tasks) {
+        task.get();
+      }
+      long time = System.nanoTime() - startTime;
+      return (double)threads * LOOKUPS * 1000 / time;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Reflective call path shared by both measured registries: look class record up by name and get its superclass
+   * record.
+   */
+  private static final class Registry
+  {
+    private Class<?> registryClass;
+    private Object index;
+    private Method forName;
+    private Method getSuperClass;
+
+    Registry(Class<?> registryClass, Class<?> recordClass, Object index) throws Exception
+    {
+      this.registryClass = registryClass;
+      this.index = index;
+      this.forName = registryClass.getMethod("forName", String.class);
+      this.forName.setAccessible(true);
+      this.getSuperClass = recordClass.getMethod("getSuperClass");
+      this.getSuperClass.setAccessible(true);
+    }
+
+    Object newInstance() throws Exception
+    {
+      return Classes.newInstance(this.registryClass.getName(), this.index);
+    }
+
+    Object lookup(Object registry, String className) throws Exception
+    {
+      Object record = this.forName.invoke(registry, className);
+      return record != null ? this.getSuperClass.invoke(record) : null;
+    }
+  }
+
+  /**
+   * Baseline registry with the same lazy records creation and superclass linking as class registry, but with all
+   * records on a map guarded by registry lock.
+   */
+  public static final class LockedRegistry
+  {
+    private Object index;
+    private Map<String, Record> records = new HashMap<String, Record>();
+
+    public LockedRegistry(Object index)
+    {
+      this.index = index;
+    }
+
+    public synchronized Record forName(String className) throws Exception
+    {
+      Record record = this.records.get(className);
+      if(record == null && Classes.<Boolean> invoke(this.index, "hasClass", className)) {
+        record = new Record(this, Classes.<String> invoke(this.index, "getSuperClassName", className));
+        this.records.put(className, record);
+      }
+      return record;
+    }
+
+    public static final class Record
+    {
+      private LockedRegistry registry;
+      private String superClassName;
+      private Record superClass;
+
+      Record(LockedRegistry registry, String superClassName)
+      {
+        this.registry = registry;
+        this.superClassName = superClassName;
+      }
+
+      public Record getSuperClass() throws Exception
+      {
+        synchronized(this.registry) {
+          if(this.superClass == null && this.superClassName != null) {
+            this.superClass = this.registry.forName(this.superClassName);
+          }
+          return this.superClass;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package js.tools.lint.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import js.tools.commons.util.Classes;
+import junit.framework.TestCase;
+
+public class ClassRegistryUnitTests extends TestCase
+{
+  private static final int CLASSES = 2000;
+  private static final int THREADS = 32;
+
+  public void testUnknownClass() throws Exception
+  {
+    Object registry = createRegistry(createIndex(10));
+    assertNull(Classes.invoke(registry, "forName", "comp.prj.Unknown"));
+    // superclass link to a class not known by index
+    Object root = Classes.invoke(registry, "forName", "comp.prj.Class0");
+    assertEquals("js.lang.Object", Classes.invoke(root, "getSuperClassName"));
+    assertNull(Classes.invoke(root, "getSuperClass"));
+  }
+
+  /**
+   * Many threads create and link the same classes concurrently, in different orders; all of them should see the same
+   * class records and the same superclass chain.
+   */
+  public void testConcurrentLinking() throws Exception
+  {
+    final Object registry = createRegistry(createIndex(CLASSES));
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<Object[]>> tasks = new ArrayList<Future<Object[]>>();
+    try {
+      for(int i = 0; i < THREADS; ++i) {
+        final Random random = new Random(i);
+        tasks.add(executor.submit(new Callable<Object[]>()
+        {
+          @Override
+          public Object[] call() throws Exception
+          {
+            Object[] records = new Object[CLASSES];
+            start.await();
+            for(int j = 0; j < CLASSES; ++j) {
+              int k = random.nextInt(CLASSES);
+              records[k] = Classes.invoke(registry, "forName", "comp.prj.Class" + k);
+              // link a few superclasses up the chain
+              Object record = records[k];
+              for(int depth = 0; record != null && depth < 8; ++depth) {
+                record = Classes.invoke(record, "getSuperClass");
+              }
+            }
+            for(int k = 0; k < CLASSES; ++k) {
+              records[k] = Classes.invoke(registry, "forName", "comp.prj.Class" + k);
+            }
+            return records;
+          }
+        }));
+      }
+      start.countDown();
+
+      Object[] expected = tasks.get(0).get();
+      for(Future<Object[]> task : tasks) {
+        Object[] records = task.get();
+        for(int k = 0; k < CLASSES; ++k) {
+          assertSame(expected[k], records[k]);
+        }
+      }
+      for(int k = 1; k < CLASSES; ++k) {
+        assertSame(expected[k - 1], Classes.invoke(expected[k], "getSuperClass"));
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Create index with a linear hierarchy: every class extends the previous one and the first extends a library class.
+   */
+  private static Object createIndex(int classesCount) throws Exception
+  {
+    Object index = Classes.newInstance("js.tools.lint.ProjectIndex");
+    for(int i = 0; i < classesCount; ++i) {
+      String className = "comp.prj.Class" + i;
+      Classes.invoke(index, "declareClass", className);
+      Classes.invoke(index, "setSuperClass", className, i > 0 ? "comp.prj.Class" + (i - 1) : "js.lang.Object");
+      Classes.invoke(index, "addField", className, "field" + i, "Number");
+    }
+    return index;
+  }
+
+  private static Object createRegistry(Object index) throws Exception
+  {
+    return Classes.newInstance("js.tools.lint.ClassRegistry", index);
+  }
+}
@@ -0,0 +1,67 @@
+package js.tools.lint.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import js.tools.commons.util.Classes;
+
+/**
+ * Compare declaration lexer with full parser on source files from a directory tree, given as program argument. Files
+ * lexer is not sure about are counted and excluded from timing, since they are parsed anyway. Run it as a standalone
+ * program; it is not a unit test since timings depend on host.
+ */
+public class DeclarationLexerBenchmark
+{
+  private static final int ROUNDS = 20;
+
+  public static void main(String[] args) throws Exception
+  {
+    List<File> files = new ArrayList<File>();
+    collectFiles(new File(args.length > 0 ? args[0] : "src/js/tools/lint/test"), files);
+    Class<?> lexerClass = Class.forName("js.tools.lint.DeclarationLexer");
+    Object scanner = Classes.newInstance("js.tools.lint.DeclarationScanner");
+
+    List<File> lexedFiles = new ArrayList<File>();
+    for(File file : files) {
+      if(Classes.invoke(lexerClass, "scan", file) != null) {
+        lexedFiles.add(file);
+      }
+    }
+    System.out.println(String.format("%d files, %d lexed, %d need full parsing.", files.size(), lexedFiles.size(), files.size() - lexedFiles.size()));
+
+    long parserTime = Long.MAX_VALUE;
+    long lexerTime = Long.MAX_VALUE;
+    for(int i = 0; i < ROUNDS; ++i) {
+      long start = System.nanoTime();
+      for(File file : lexedFiles) {
+        Classes.invoke(scanner, "parse", file);
+      }
+      parserTime = Math.min(parserTime, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for(File file : lexedFiles) {
+        Classes.invoke(lexerClass, "scan", file);
+      }
+      lexerTime = Math.min(lexerTime, System.nanoTime() - start);
+    }
+
+    System.out.println(String.format("parser:  %8.1f us/file", parserTime / 1000.0 / lexedFiles.size()));
+    System.out.println(String.format("lexer:   %8.1f us/file", lexerTime / 1000.0 / lexedFiles.size()));
+    System.out.println(String.format("speedup: %8.1fx", (double)parserTime / lexerTime));
+  }
+
+  private static void collectFiles(File directory, List<File> files)
+  {
+    File[] children = directory.listFiles();
+    if(children == null) return;
+    for(File child : children) {
+      if(child.isDirectory()) {
+        collectFiles(child, files);
+      }
+      else if(child.getName().endsWith(".js")) {
+        files.add(child);
+      }
+    }
+  }
+}
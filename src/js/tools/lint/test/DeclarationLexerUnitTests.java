@@ -0,0 +1,150 @@
+package js.tools.lint.test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import js.tools.commons.util.Classes;
+import junit.framework.TestCase;
+
+public class DeclarationLexerUnitTests extends TestCase
+{
+  private static final String[] SOURCES = new String[]
+  {
+      "XHR", "assignment", "assignment-to-constant", "bad-class-package", "bad-function-definition",
+      "bad-return-scope", "bad-return-value", "member-overloading", "missing-ctor-annotation",
+      "missing-field-declaration", "missing-package", "valid-assignment", "valid-class-definition",
+      "valid-inner-class-definition", "valid-return", "variable-scope"
+  };
+
+  private Object scanner;
+
+  @Override
+  protected void setUp() throws Exception
+  {
+    this.scanner = Classes.newInstance("js.tools.lint.DeclarationScanner");
+  }
+
+  public void testSameAsParser() throws Exception
+  {
+    for(String source : SOURCES) {
+      File file = new File("src/js/tools/lint/test/" + source + ".js");
+      Object index = Classes.invoke(Class.forName("js.tools.lint.DeclarationLexer"), "scan", file);
+      assertNotNull(source, index);
+      assertEquals(source, dump(Classes.invoke(this.scanner, "parse", file)), dump(index));
+    }
+  }
+
+  public void testSyntaxError() throws Exception
+  {
+    String[] sources = new String[]
+    {
+        "comp.prj.A = function() {}; x = ;", "comp.prj.A = function() {}; x = 1 2;",
+        "comp.prj.A = function() {}; function(a b) {}", "comp.prj.A = function() {}; var = 3;",
+        "comp.prj.A = function() {}; x = 'unterminated;"
+    };
+    File file = File.createTempFile("lint", ".js");
+    try {
+      for(String source : sources) {
+        write(file, source);
+        // syntax error file yields the same declarations whether lexer is sure about it or parser falls back
+        assertEquals(source, "comp.prj.A {}\n", dump(Classes.invoke(this.scanner, "scan", file)));
+        assertEquals(source, "comp.prj.A {}\n", dump(Classes.invoke(this.scanner, "parse", file)));
+      }
+    }
+    finally {
+      file.delete();
+    }
+
+    file = new File("src/js/tools/lint/test/bad-syntax.js");
+    assertEquals(dump(Classes.invoke(this.scanner, "parse", file)), dump(Classes.invoke(this.scanner, "scan", file)));
+  }
+
+  public void testDeclarations() throws Exception
+  {
+    Object index = scan("$package('comp.prj');\n" + //
+        "/** Class. */\n" + //
+        "comp.prj.Son = function(name) {\n" + //
+        "  this.$super(name);\n" + //
+        "  /** @type Number */\n" + //
+        "  this.age = 0;\n" + //
+        "  var self = this;\n" + //
+        "  this.callback = function() { /** @type String */ this.inner = null; };\n" + //
+        "  /** @type String */ this.name = name / 2;\n" + //
+        "};\n" + //
+        "comp.prj.Son.prototype = { toString: function() { return '/*' + /x\\/y/.test(\"}\"); } };\n" + //
+        "$extends(comp.prj.Son, comp.prj.Father);\n");
+    assertEquals("comp.prj.Son extends comp.prj.Father {age:Number,name:String}\n", dump(index));
+  }
+
+  public void testNestedFunctionIsNotClass() throws Exception
+  {
+    assertEquals("", dump(scan("(function() { comp.prj.Class = function() {}; })();")));
+    assertEquals("", dump(scan("function f() { comp.prj.Class = function() {}; }")));
+  }
+
+  public void testNotSure() throws Exception
+  {
+    // function is not the whole right value
+    assertNull(scan("comp.prj.Class = function() {}.bind(this);"));
+    assertNull(scan("comp.prj.Class = function() {}\n(x);"));
+    // apidoc not attached to the field assignment
+    assertNull(scan("comp.prj.Class = function() { /** @type Number */ x(); this.age = 0; };"));
+    // division or regular expression after closing brace
+    assertNull(scan("if(a) {}\n/x/.test(b);"));
+    assertNull(scan("x = { get value() { return 0; } };"));
+    assertNull(scan("$extends(comp.prj.Son, base());"));
+    assertNull(scan("x = \u00e9;"));
+    assertNull(scan("comp.prj.Class = function() {"));
+    assertNull(scan("x = 'unterminated;"));
+    assertNull(scan("comp.prj.Class = function() { for(;) {} };"));
+  }
+
+  private static void write(File file, String content) throws IOException
+  {
+    Writer writer = new FileWriter(file);
+    try {
+      writer.write(content);
+    }
+    finally {
+      writer.close();
+    }
+  }
+
+  private static Object scan(String source) throws Exception
+  {
+    byte[] bytes = source.getBytes("UTF-8");
+    return Classes.invoke(Class.forName("js.tools.lint.DeclarationLexer"), "scan", bytes, bytes.length);
+  }
+
+  /**
+   * Dump index declarations in class name order, one class per line.
+   */
+  private static String dump(Object index) throws Exception
+  {
+    List<String> classNames = new ArrayList<String>(Classes.<Collection<String>> invoke(index, "getClassNames"));
+    Collections.sort(classNames);
+    StringBuilder builder = new StringBuilder();
+    for(String className : classNames) {
+      if(!(Boolean)Classes.invoke(index, "isDeclared", className)) {
+        builder.append("? ");
+      }
+      builder.append(className);
+      String superClassName = Classes.invoke(index, "getSuperClassName", className);
+      if(superClassName != null) {
+        builder.append(" extends ");
+        builder.append(superClassName);
+      }
+      builder.append(' ');
+      builder.append(Classes.<Map<String, String>> invoke(index, "getFields", className).toString().replace(", ", ",").replace('=', ':'));
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,199 @@
+package js.tools.lint.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import js.tools.commons.util.Classes;
+import junit.framework.TestCase;
+
+import org.mozilla.javascript.Node;
+import org.mozilla.javascript.Token;
+
+public class DiagnosticUnitTests extends TestCase
+{
+  private Object files;
+
+  @Override
+  protected void setUp() throws Exception
+  {
+    this.files = Classes.newInstance("js.tools.lint.SourceFiles");
+  }
+
+  public void testConsoleSink() throws Throwable
+  {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    Object sink = Classes.newInstance("js.tools.lint.ConsoleSink", this.files, stream);
+    Object log = Classes.newInstance("js.tools.lint.SinkLog", this.files, sink);
+    Classes.invoke(log, "setCurrentSource", "Class.js");
+    Classes.invoke(log, "setCurrentNode", new Node(Token.EMPTY, 12));
+    Classes.invoke(log, "report", warn("BAD_ARG_TYPE"), new Object[]
+    {
+        "Expected %s.", "Number"
+    });
+    Classes.invoke(log, "setCurrentNode", new Node(Token.EMPTY, 14));
+    Classes.invoke(log, "warn", "Switch statement with missing default clause.", new Object[0]);
+    Classes.invoke(log, "print", "Scanned");
+    Classes.invoke(log, "print", ".");
+    Classes.invoke(log, "println", "");
+
+    // nothing is written before flush
+    assertEquals(0, stream.size());
+    Classes.invoke(log, "flush");
+    String separator = System.getProperty("line.separator");
+    assertEquals("[1][Class.js:12] Bad argument type. Expected Number." + separator + //
+        "[2][Class.js:14] Switch statement with missing default clause." + separator + //
+        "Scanned." + separator, stream.toString());
+  }
+
+  public void testSourcePaths() throws Throwable
+  {
+    // files with the same name from different packages have distinct ids
+    Object first = Classes.invoke(this.files, "getId", "comp/a/Util.js");
+    Object second = Classes.invoke(this.files, "getId", "comp/b/Util.js");
+    assertFalse(first.equals(second));
+    assertEquals("comp/b/Util.js", Classes.invoke(this.files, "getName", second));
+    assertEquals("Util.js", Classes.invoke(this.files, "getFileName", second));
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    Object sink = Classes.newInstance("js.tools.lint.JsonLinesSink", this.files, stream, true);
+    Object log = Classes.newInstance("js.tools.lint.SinkLog", this.files, sink);
+    Classes.invoke(log, "setCurrentSource", "comp/b/Util.js");
+    Classes.invoke(log, "setCurrentNode", new Node(Token.EMPTY, 2));
+    Classes.invoke(log, "warn", "Warning.", new Object[0]);
+    Classes.invoke(log, "close");
+    assertEquals("{\"file\":\"comp/b/Util.js\",\"line\":2,\"message\":\"Warning.\"}\n", stream.toString("UTF-8"));
+  }
+
+  public void testReports() throws Throwable
+  {
+    File file = File.createTempFile("lint", ".xml.gz");
+    try {
+      Object sink = Classes.invoke(Class.forName("js.tools.lint.ReportSink"), "create", "checkstyle", file, this.files);
+      Object log = Classes.newInstance("js.tools.lint.SinkLog", this.files, sink);
+      Classes.invoke(log, "setCurrentSource", "A.js");
+      Classes.invoke(log, "setCurrentNode", new Node(Token.EMPTY, 1));
+      Classes.invoke(log, "report", warn("BAD_ARG_TYPE"), new Object[]
+      {
+          "Expected <%s>.", "\"Number\""
+      });
+      Classes.invoke(log, "setCurrentSource", "B.js");
+      Classes.invoke(log, "report", warn("NO_SUPER"), new Object[0]);
+      Classes.invoke(log, "close");
+
+      String report = read(new GZIPInputStream(new FileInputStream(file)));
+      assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<checkstyle version=\"4.3\">\n" + //
+          "<file name=\"A.js\">\n" + //
+          "<error line=\"1\" severity=\"warning\" message=\"Bad argument type. Expected &lt;&quot;Number&quot;&gt;.\" source=\"js-lint.BAD_ARG_TYPE\"/>\n" + //
+          "</file>\n<file name=\"B.js\">\n" + //
+          "<error line=\"1\" severity=\"warning\" message=\"Missing super class.\" source=\"js-lint.NO_SUPER\"/>\n" + //
+          "</file>\n</checkstyle>\n", report);
+
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      sink = Classes.newInstance("js.tools.lint.JsonLinesSink", this.files, stream, true);
+      log = Classes.newInstance("js.tools.lint.SinkLog", this.files, sink);
+      Classes.invoke(log, "setCurrentSource", "A.js");
+      Classes.invoke(log, "setCurrentNode", new Node(Token.EMPTY, 7));
+      Classes.invoke(log, "warn", "Tab\tand \"quote\".", new Object[0]);
+      Classes.invoke(log, "close");
+      assertEquals("{\"file\":\"A.js\",\"line\":7,\"message\":\"Tab\\tand \\\"quote\\\".\"}\n", stream.toString("UTF-8"));
+    }
+    finally {
+      file.delete();
+    }
+  }
+
+  public void testRecordedCodes() throws Throwable
+  {
+    Object recordingLog = Classes.newInstance("js.tools.lint.RecordingLog");
+    Classes.invoke(recordingLog, "setCurrentSource", "Class.js");
+    Classes.invoke(recordingLog, "setCurrentNode", new Node(Token.EMPTY, 3));
+    Classes.invoke(recordingLog, "report", warn("NO_SUPER"), new Object[0]);
+
+    // warning code survives cache write and read
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Classes.invoke(recordingLog, "write", new DataOutputStream(bytes));
+    Class<?> recordingLogClass = Class.forName("js.tools.lint.RecordingLog");
+    Object input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    recordingLog = Classes.invoke(recordingLogClass, "read", input);
+
+    final Object[] diagnostic = new Object[1];
+    Object sink = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]
+    {
+      Class.forName("js.tools.lint.DiagnosticSink")
+    }, new InvocationHandler()
+    {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args)
+      {
+        if(method.getName().equals("report")) diagnostic[0] = args[0];
+        return null;
+      }
+    });
+    Object log = Classes.newInstance("js.tools.lint.SinkLog", this.files, sink);
+    Classes.invoke(recordingLog, "replay", log);
+    assertEquals(warn("NO_SUPER"), Classes.invoke(diagnostic[0], "getWarn"));
+    assertEquals(3, (int)(Integer)Classes.invoke(diagnostic[0], "getLine"));
+    Object fileId = Classes.invoke(diagnostic[0], "getFileId");
+    assertEquals("Class.js", Classes.invoke(this.files, "getName", fileId));
+  }
+
+  public void testSwitchCodes() throws Throwable
+  {
+    Object recordingLog = Classes.newInstance("js.tools.lint.RecordingLog");
+    Object session = Classes.newInstance("js.tools.lint.LintSession", recordingLog);
+    Classes.invoke(session, "lint", new File("Switch.js"), "function f(x) {\n  switch(x) {\n  case 1:\n    x = 2;\n  }\n}\n");
+
+    final List<Object> warns = new ArrayList<Object>();
+    Object sink = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]
+    {
+      Class.forName("js.tools.lint.DiagnosticSink")
+    }, new InvocationHandler()
+    {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Exception
+      {
+        if(method.getName().equals("report")) warns.add(Classes.invoke(args[0], "getWarn"));
+        return null;
+      }
+    });
+    Object log = Classes.newInstance("js.tools.lint.SinkLog", this.files, sink);
+    Classes.invoke(recordingLog, "replay", log);
+    assertTrue(warns.contains(warn("SWITCH_NO_BREAK")));
+    assertTrue(warns.contains(warn("SWITCH_NO_DEFAULT")));
+  }
+
+  private static String read(InputStream stream) throws IOException
+  {
+    Reader reader = new InputStreamReader(stream, "UTF-8");
+    try {
+      StringBuilder builder = new StringBuilder();
+      char[] buffer = new char[1024];
+      for(int count; (count = reader.read(buffer)) != -1;) {
+        builder.append(buffer, 0, count);
+      }
+      return builder.toString();
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private static Object warn(String name) throws Exception
+  {
+    return Classes.invoke(Class.forName("js.tools.lint.Warn"), "valueOf", name);
+  }
+}
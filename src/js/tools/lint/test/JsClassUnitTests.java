@@ -0,0 +1,171 @@
+package js.tools.lint.test;
+
+import java.io.File;
+import java.util.Collections;
+
+import js.tools.commons.util.Classes;
+import junit.framework.TestCase;
+
+public class JsClassUnitTests extends TestCase
+{
+  private Object symbols;
+
+  @Override
+  protected void setUp() throws Exception
+  {
+    this.symbols = Classes.newInstance("js.tools.lint.SymbolTable");
+  }
+
+  public void testDeclaredField() throws Throwable
+  {
+    Object jsClass = getJsClass("comp.prj.Class");
+    Classes.invoke(jsClass, "addField", "name", "String");
+    Classes.invoke(jsClass, "addField", "name", "Number");
+
+    assertTrue((Boolean)Classes.invoke(jsClass, "hasDeclaredField", "name"));
+    assertFalse((Boolean)Classes.invoke(jsClass, "hasDeclaredField", "age"));
+    Object jsField = Classes.invoke(jsClass, "getDeclaredField", "name");
+    assertEquals("String", Classes.getFieldValue(Classes.invoke(jsField, "getType"), "value"));
+  }
+
+  public void testInheritedField() throws Throwable
+  {
+    Object father = getJsClass("comp.prj.Father");
+    Object son = getJsClass("comp.prj.Son");
+    Classes.invoke(father, "addField", "name", "String");
+    Classes.invoke(son, "addField", "age", "Number");
+
+    assertFalse((Boolean)Classes.invoke(son, "hasField", "name"));
+    Classes.invoke(son, "setSuperClass", father);
+    assertTrue((Boolean)Classes.invoke(son, "hasField", "name"));
+    assertTrue((Boolean)Classes.invoke(son, "hasField", "age"));
+    assertFalse((Boolean)Classes.invoke(son, "hasDeclaredField", "name"));
+    assertFalse((Boolean)Classes.invoke(father, "hasField", "age"));
+
+    // field added to superclass after subclass fields view was built
+    Classes.invoke(father, "addField", "address", "String");
+    assertTrue((Boolean)Classes.invoke(son, "hasField", "address"));
+
+    Classes.invoke(son, "setSuperClass", (Object)null);
+    assertFalse((Boolean)Classes.invoke(son, "hasField", "name"));
+  }
+
+  public void testFieldShadowing() throws Throwable
+  {
+    Object father = getJsClass("comp.prj.Father");
+    Object son = getJsClass("comp.prj.Son");
+    Classes.invoke(son, "setSuperClass", father);
+    Classes.invoke(father, "addField", "value", "String");
+    Classes.invoke(son, "addField", "value", "Number");
+
+    Object jsField = Classes.invoke(son, "getField", "value");
+    assertEquals("Number", Classes.getFieldValue(Classes.invoke(jsField, "getType"), "value"));
+  }
+
+  public void testFieldsViewInvalidation() throws Throwable
+  {
+    Object father = getJsClass("comp.prj.Father");
+    Object son = getJsClass("comp.prj.Son");
+    Object base = getJsClass("comp.prj.Base");
+    Object other = getJsClass("comp.prj.Other");
+    Classes.invoke(son, "setSuperClass", father);
+    Classes.invoke(other, "setSuperClass", base);
+    Classes.invoke(base, "addField", "name", "String");
+
+    assertFalse((Boolean)Classes.invoke(son, "hasField", "name"));
+    assertTrue((Boolean)Classes.invoke(other, "hasField", "name"));
+    Object otherFields = Classes.getFieldValue(other, "allFields");
+
+    // field added to unrelated hierarchy keeps other fields view
+    Classes.invoke(father, "addField", "name", "String");
+    assertTrue((Boolean)Classes.invoke(son, "hasField", "name"));
+    assertTrue((Boolean)Classes.invoke(other, "hasField", "name"));
+    assertSame(otherFields, Classes.getFieldValue(other, "allFields"));
+  }
+
+  public void testCircularHierarchy() throws Throwable
+  {
+    Object father = getJsClass("comp.prj.Father");
+    Object son = getJsClass("comp.prj.Son");
+    Classes.invoke(father, "addField", "name", "String");
+    Classes.invoke(son, "setSuperClass", father);
+    Classes.invoke(father, "setSuperClass", son);
+    assertTrue((Boolean)Classes.invoke(son, "hasField", "name"));
+  }
+
+  public void testProjectIndex() throws Throwable
+  {
+    // declarations from two source files, the subclass one scanned first
+    Object sonFile = Classes.newInstance("js.tools.lint.ProjectIndex");
+    Classes.invoke(sonFile, "declareClass", "comp.prj.Son");
+    Classes.invoke(sonFile, "setSuperClass", "comp.prj.Son", "comp.prj.Father");
+    Classes.invoke(sonFile, "addField", "comp.prj.Son", "age", "Number");
+    Object fatherFile = Classes.newInstance("js.tools.lint.ProjectIndex");
+    Classes.invoke(fatherFile, "declareClass", "comp.prj.Father");
+    Classes.invoke(fatherFile, "addField", "comp.prj.Father", "name", "String");
+    Classes.invoke(fatherFile, "setSuperClass", "comp.prj.Son", "comp.prj.Other");
+
+    Object index = Classes.newInstance("js.tools.lint.ProjectIndex");
+    Classes.invoke(index, "merge", sonFile);
+    Classes.invoke(index, "merge", fatherFile);
+    assertEquals("comp.prj.Father", Classes.invoke(index, "getSuperClassName", "comp.prj.Son"));
+    assertNull(Classes.invoke(index, "getSuperClassName", "comp.prj.Father"));
+    assertTrue((Boolean)Classes.invoke(index, "isDeclared", "comp.prj.Father"));
+
+    Object registry = Classes.newInstance("js.tools.lint.ClassRegistry", index);
+    Classes.invoke(this.symbols, "setRegistry", registry);
+    Object son = getJsClass("comp.prj.Son");
+    assertTrue((Boolean)Classes.invoke(son, "hasField", "name"));
+    assertTrue((Boolean)Classes.invoke(son, "hasField", "age"));
+    // indexed fields are still to be declared by current file constructor
+    assertFalse((Boolean)Classes.invoke(son, "hasDeclaredField", "age"));
+    Object father = Classes.invoke(this.symbols, "findJsClass", "comp.prj.Father");
+    assertNotNull(father);
+    assertTrue((Boolean)Classes.invoke(son, "isSubClassOf", father));
+  }
+
+  public void testProjectIndexFile() throws Throwable
+  {
+    File sourceFile = File.createTempFile("son", ".js");
+    File file = File.createTempFile("project", ".index");
+    try {
+      Object sourceIndex = Classes.newInstance("js.tools.lint.ProjectIndex");
+      Classes.invoke(sourceIndex, "declareClass", "comp.prj.Son");
+      Classes.invoke(sourceIndex, "setSuperClass", "comp.prj.Son", "comp.prj.Father");
+      Classes.invoke(sourceIndex, "addField", "comp.prj.Son", "age", "Number");
+      Classes.invoke(sourceIndex, "addField", "comp.prj.Son", "name", null);
+      Object source = Classes.newInstance("js.tools.lint.ProjectIndexFile$Source", sourceFile);
+      Classes.setFieldValue(source, "index", sourceIndex);
+      Class<?> indexFileClass = Class.forName("js.tools.lint.ProjectIndexFile");
+      Classes.invoke(indexFileClass, "save", file, Collections.singletonList(source), sourceIndex);
+
+      Object index = Classes.invoke(indexFileClass, "load", file);
+      assertTrue((Boolean)Classes.invoke(index, "hasClass", "comp.prj.Son"));
+      assertTrue((Boolean)Classes.invoke(index, "isDeclared", "comp.prj.Son"));
+      // superclass is only referenced by index
+      assertFalse((Boolean)Classes.invoke(index, "hasClass", "comp.prj.Father"));
+      assertFalse((Boolean)Classes.invoke(index, "isDeclared", "comp.prj.Father"));
+      assertEquals("comp.prj.Father", Classes.invoke(index, "getSuperClassName", "comp.prj.Son"));
+      assertEquals("{age=Number, name=null}", Classes.invoke(index, "getFields", "comp.prj.Son").toString());
+
+      Object unchanged = Classes.newInstance("js.tools.lint.ProjectIndexFile$Source", sourceFile);
+      assertTrue((Boolean)Classes.invoke(index, "isCurrent", Collections.singletonList(unchanged)));
+      Object stored = Classes.invoke(index, "getSourceIndex", unchanged);
+      assertEquals("comp.prj.Father", Classes.invoke(stored, "getSuperClassName", "comp.prj.Son"));
+
+      sourceFile.setLastModified(sourceFile.lastModified() - 60000);
+      Object changed = Classes.newInstance("js.tools.lint.ProjectIndexFile$Source", sourceFile);
+      assertFalse((Boolean)Classes.invoke(index, "isCurrent", Collections.singletonList(changed)));
+      assertNull(Classes.invoke(index, "getSourceIndex", changed));
+    }
+    finally {
+      sourceFile.delete();
+      file.delete();
+    }
+  }
+
+  private Object getJsClass(String name) throws Throwable
+  {
+    return Classes.invoke(this.symbols, "getJsClass", name);
+  }
+}
@@ -1,5 +1,10 @@
 package js.tools.lint.test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -8,43 +13,59 @@ import junit.framework.TestCase;
 
 public class JsDocUnitTests extends TestCase
 {
-  private Matcher parse(String apidoc) throws Exception
+  /** Regular expression replaced by JsDoc tokenizer, used as reference for tokenizer behavior. */
+  private static final Pattern annotationPattern = Pattern.compile("^[^@]+@(constructor|return|type|param|throws)\\s+([^\\s]+)?.*$", Pattern.MULTILINE);
+
+  private static Object parse(String apidoc) throws Exception
   {
-    Class<?> utilsClass = Class.forName("js.tools.lint.JsDoc");
-    Pattern p = Classes.getFieldValue(utilsClass, "annotationPattern");
-    return p.matcher(apidoc);
+    return Classes.newInstance("js.tools.lint.JsDoc", apidoc);
   }
 
-  public void testTypeAnnotationPattern() throws Exception
+  public void testTypeAnnotation() throws Throwable
   {
     String apidoc = "/**\r\n * Field.\r\n * @type comp.prj.Class.InnerClass\r\n */";
-    Matcher m = parse(apidoc);
-    assertTrue(m.find());
-    assertEquals("type", m.group(1));
-    assertEquals("comp.prj.Class.InnerClass", m.group(2));
+    Object jsDoc = parse(apidoc);
+    assertEquals("comp.prj.Class.InnerClass", Classes.invoke(jsDoc, "getTypeType"));
+    assertNull(Classes.invoke(jsDoc, "getReturnType"));
   }
 
-  public void testReturnAnnotationPattern() throws Exception
+  public void testReturnAnnotation() throws Throwable
   {
     String apidoc = "/**\r\n * Class.\r\n * @return Number\r\n */";
-    Matcher m = parse(apidoc);
-    assertTrue(m.find());
-    assertEquals("return", m.group(1));
-    assertEquals("Number", m.group(2));
+    Object jsDoc = parse(apidoc);
+    assertEquals("Number", Classes.invoke(jsDoc, "getReturnType"));
+    assertFalse((Boolean)Classes.invoke(jsDoc, "hasConstructor"));
   }
 
-  public void testParamAnnotationPattern() throws Exception
+  public void testParamAnnotation() throws Throwable
   {
     String apidoc = "/**\r\n * Method.\r\n * @param Number firstParameter first parameter,\r\n * @param String secondParameter second parameter.\r\n */";
-    Matcher m = parse(apidoc);
-    assertTrue(m.find());
-    assertEquals(2, m.groupCount());
-    assertEquals("param", m.group(1));
-    assertEquals("Number", m.group(2));
-    assertTrue(m.find());
-    assertEquals(2, m.groupCount());
-    assertEquals("param", m.group(1));
-    assertEquals("String", m.group(2));
+    Object jsDoc = parse(apidoc);
+    assertEquals("Number", Classes.invoke(jsDoc, "getParamType", 0));
+    assertEquals("String", Classes.invoke(jsDoc, "getParamType", 1));
+  }
+
+  public void testConstructorAnnotation() throws Throwable
+  {
+    String apidoc = "/**\r\n * Class.\r\n * @constructor\r\n * Constructor.\r\n */";
+    Object jsDoc = parse(apidoc);
+    assertTrue((Boolean)Classes.invoke(jsDoc, "hasConstructor"));
+  }
+
+  public void testAnnotationAtLineStart() throws Throwable
+  {
+    // annotation needs at least one character between line start and @ sign
+    Object jsDoc = parse("@return Number\n@type String");
+    assertNull(Classes.invoke(jsDoc, "getReturnType"));
+    assertNull(Classes.invoke(jsDoc, "getTypeType"));
+
+    // characters before @ sign may span lines but should not include other @ sign
+    jsDoc = parse("/**\n@return Number\n * @type String */");
+    assertEquals("Number", Classes.invoke(jsDoc, "getReturnType"));
+    assertEquals("String", Classes.invoke(jsDoc, "getTypeType"));
+
+    jsDoc = parse("/**\n * @author John\n@return Number\n */");
+    assertNull(Classes.invoke(jsDoc, "getReturnType"));
   }
 
   public void testMethodApidoc() throws Throwable
@@ -65,4 +86,40 @@ public class JsDocUnitTests extends TestCase
     assertEquals("js.lang.IllegalState", Classes.invoke(jsDoc, "getThrowsType", 0));
     assertEquals("js.lang.IllegalArgument", Classes.invoke(jsDoc, "getThrowsType", 1));
   }
+
+  public void testTokenizerMatchesPattern() throws Throwable
+  {
+    String[] fragments = new String[]
+    {
+        "/**", "*/", " * ", "@", "@return", "@returns", "@type", "@param", "@throws", "@constructor", "@author", "Number",
+        "comp.prj.Class", "text", " ", "  ", "\t", "\r\n", "\n", "\r", "\u2028", "\u0085", "x@y"
+    };
+    Random random = new Random(1964);
+    StringBuilder builder = new StringBuilder();
+    for(int i = 0; i < 20000; ++i) {
+      builder.setLength(0);
+      int count = random.nextInt(24);
+      for(int j = 0; j < count; ++j) {
+        builder.append(fragments[random.nextInt(fragments.length)]);
+      }
+      String apidoc = builder.toString();
+      Object jsDoc = parse(apidoc);
+      assertEquals(apidoc, patternAnnotations(apidoc), Classes.getFieldValue(jsDoc, "annotations"));
+    }
+  }
+
+  private static Map<String, List<String>> patternAnnotations(String apidoc)
+  {
+    Map<String, List<String>> annotations = new HashMap<String, List<String>>();
+    Matcher matcher = annotationPattern.matcher(apidoc);
+    while(matcher.find()) {
+      List<String> types = annotations.get(matcher.group(1));
+      if(types == null) {
+        types = new ArrayList<String>();
+        annotations.put(matcher.group(1), types);
+      }
+      types.add(matcher.group(2));
+    }
+    return annotations;
+  }
 }
@@ -1,8 +1,19 @@
 package js.tools.lint.test;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import js.tools.commons.util.Classes;
 import js.tools.lint.Config;
@@ -26,4 +37,360 @@ public class JsLintUnitTests extends TestCase
     Lint lint = new Lint(config);
     lint.scan();
   }
+
+  public void testConcurrentScan() throws Exception
+  {
+    MockLog serialLog = new MockLog();
+    scan(1, serialLog);
+    MockLog concurrentLog = new MockLog();
+    scan(4, concurrentLog);
+    // concurrent pipeline reports warnings in discovery order, the same as serial scanning
+    assertFalse(serialLog.messages.isEmpty());
+    assertEquals(serialLog.messages, concurrentLog.messages);
+  }
+
+  public void testConcurrentScanFailure() throws Exception
+  {
+    Config config = Classes.newInstance("js.tools.lint.Config");
+    Classes.setFieldValue(config, "sourcepath", new File("res"));
+    Classes.setFieldValue(config, "excludes", Collections.singletonList("ecma.lang"));
+    Classes.setFieldValue(config, "threads", 2);
+    // profile file is a directory so profile write fails too
+    Classes.setFieldValue(config, "profile", new File("res"));
+    Object lint = Classes.newInstance("js.tools.lint.Lint", config, new MockLog());
+    // worker failure outside lint proper should fail the scan, not leave reporter waiting forever
+    Classes.setFieldValue(lint, "sessions", new ThreadLocal<Object>()
+    {
+      @Override
+      protected Object initialValue()
+      {
+        throw new AssertionError("session failure");
+      }
+    });
+    try {
+      Classes.invoke(lint, "scan");
+      fail("Lint session failure should fail the scan.");
+    }
+    catch(AssertionError e) {
+      // profile write failure does not mask scan failure
+      assertEquals("session failure", e.getMessage());
+      assertEquals(1, e.getSuppressed().length);
+    }
+  }
+
+  private static void scan(int threads, MockLog log) throws Exception
+  {
+    Config config = Classes.newInstance("js.tools.lint.Config");
+    Classes.setFieldValue(config, "sourcepath", new File("res"));
+    Classes.setFieldValue(config, "excludes", Collections.singletonList("ecma.lang"));
+    Classes.setFieldValue(config, "threads", threads);
+    Object lint = Classes.newInstance("js.tools.lint.Lint", config, log);
+    Classes.invoke(lint, "scan");
+  }
+
+  public void testProfile() throws Exception
+  {
+    File profile = File.createTempFile("lint", ".json");
+    try {
+      Config config = Classes.newInstance("js.tools.lint.Config");
+      Classes.setFieldValue(config, "sourcepath", new File("res"));
+      Classes.setFieldValue(config, "excludes", Collections.singletonList("ecma.lang"));
+      Classes.setFieldValue(config, "threads", 2);
+      Classes.setFieldValue(config, "profile", profile);
+      Lint lint = new Lint(config);
+      lint.scan();
+
+      String summary = new String(Files.readAllBytes(profile.toPath()), "UTF-8");
+      assertTrue(summary.startsWith("{\n\"files\":"));
+      assertTrue(summary.contains("\"scan\":{\"count\":"));
+      assertTrue(summary.contains("\"AssignmentHandler\":{\"count\":"));
+      assertTrue(summary.contains("\"slowestFiles\":[\n{\"path\":"));
+
+      // profile covers last scan only
+      String files = summary.substring(0, summary.indexOf(','));
+      lint.scan();
+      summary = new String(Files.readAllBytes(profile.toPath()), "UTF-8");
+      assertEquals(files, summary.substring(0, summary.indexOf(',')));
+    }
+    finally {
+      profile.delete();
+    }
+  }
+
+  public void testFlightRecorderEvents() throws Exception
+  {
+    File sourcepath = Files.createTempDirectory("lint").toFile();
+    File recordingFile = File.createTempFile("lint", ".jfr");
+    Recording recording = new Recording();
+    try {
+      write(new File(sourcepath, "Class.js"), "comp.prj.Class = function() { this.name = null; };");
+      recording.enable("js.tools.lint.LintFile");
+      recording.enable("js.tools.lint.LintParse");
+      recording.enable("js.tools.lint.LintRule");
+      recording.start();
+      Config config = Classes.newInstance("js.tools.lint.Config");
+      Classes.setFieldValue(config, "sourcepath", sourcepath);
+      Classes.setFieldValue(config, "excludes", Collections.emptyList());
+      new Lint(config).scan();
+      recording.stop();
+      recording.dump(recordingFile.toPath());
+
+      Set<String> eventNames = new HashSet<String>();
+      for(RecordedEvent event : RecordingFile.readAllEvents(recordingFile.toPath())) {
+        eventNames.add(event.getEventType().getName());
+        if(event.getEventType().getName().equals("js.tools.lint.LintFile")) {
+          assertEquals(new File(sourcepath, "Class.js").getPath(), event.getString("path"));
+        }
+      }
+      assertTrue(eventNames.contains("js.tools.lint.LintFile"));
+      assertTrue(eventNames.contains("js.tools.lint.LintParse"));
+      assertTrue(eventNames.contains("js.tools.lint.LintRule"));
+    }
+    finally {
+      recording.close();
+      recordingFile.delete();
+      delete(sourcepath);
+    }
+  }
+
+  public void testIncrementalCache() throws Throwable
+  {
+    File cacheFile = File.createTempFile("lint", ".cache");
+    File jsFile = File.createTempFile("lint", ".js");
+    try {
+      write(jsFile, "$package('comp.prj');");
+      Object cache = Classes.newInstance("js.tools.lint.LintCache", cacheFile);
+      Classes.invoke(cache, "load");
+      assertNull(Classes.invoke(cache, "get", jsFile));
+      Object log = Classes.newInstance("js.tools.lint.RecordingLog");
+      Classes.invoke(cache, "put", jsFile, log, Classes.newInstance("js.tools.lint.Dependencies"));
+      assertSame(log, Classes.invoke(cache, "get", jsFile));
+      Classes.invoke(cache, "save");
+
+      // cache reloaded from file; touched but unchanged file is still cached
+      cache = Classes.newInstance("js.tools.lint.LintCache", cacheFile);
+      Classes.invoke(cache, "load");
+      jsFile.setLastModified(jsFile.lastModified() - 10000);
+      assertNotNull(Classes.invoke(cache, "get", jsFile));
+
+      write(jsFile, "$package('comp.prj.sub');");
+      assertNull(Classes.invoke(cache, "get", jsFile));
+
+      // warnings name files relative to source path; cache saved for a source path is not valid for another one
+      File sourcepath = jsFile.getParentFile();
+      cache = Classes.newInstance("js.tools.lint.LintCache", cacheFile, false, sourcepath);
+      Classes.invoke(cache, "load");
+      assertNull(Classes.invoke(cache, "get", jsFile));
+      Classes.invoke(cache, "put", jsFile, log, Classes.newInstance("js.tools.lint.Dependencies"));
+      Classes.invoke(cache, "save");
+      cache = Classes.newInstance("js.tools.lint.LintCache", cacheFile, false, new File(sourcepath, "."));
+      Classes.invoke(cache, "load");
+      assertNotNull(Classes.invoke(cache, "get", jsFile));
+      cache = Classes.newInstance("js.tools.lint.LintCache", cacheFile, false, sourcepath.getParentFile());
+      Classes.invoke(cache, "load");
+      assertNull(Classes.invoke(cache, "get", jsFile));
+    }
+    finally {
+      cacheFile.delete();
+      jsFile.delete();
+    }
+  }
+
+  /** Classes declared and referenced by test source files: base <- sub <- user; other is not related. */
+  private static final String[][] DEPENDENCIES = new String[][]
+  {
+      {
+          "comp.prj.Base", "js.lang.Object"
+      },
+      {
+          "comp.prj.Sub", "comp.prj.Base"
+      },
+      {
+          "comp.prj.User", "comp.prj.Sub.CONSTANT"
+      },
+      {
+          "comp.prj.Other", "js.lang.Object"
+      }
+  };
+
+  public void testStaleFiles() throws Throwable
+  {
+    File cacheFile = File.createTempFile("lint", ".cache");
+    List<File> jsFiles = new ArrayList<File>();
+    try {
+      for(String[] dependencies : DEPENDENCIES) {
+        File jsFile = File.createTempFile("lint", ".js");
+        write(jsFile, dependencies[0] + " = function() {};");
+        jsFiles.add(jsFile);
+      }
+
+      Object cache = Classes.newInstance("js.tools.lint.LintCache", cacheFile);
+      Classes.invoke(cache, "load");
+      for(int i = 0; i < jsFiles.size(); ++i) {
+        assertNull(Classes.invoke(cache, "get", jsFiles.get(i)));
+        put(cache, jsFiles.get(i), i);
+      }
+      assertTrue(((List<?>)Classes.invoke(cache, "getStaleFiles", jsFiles)).isEmpty());
+      Classes.invoke(cache, "save");
+
+      cache = Classes.newInstance("js.tools.lint.LintCache", cacheFile);
+      Classes.invoke(cache, "load");
+      write(jsFiles.get(0), "comp.prj.Base = function(value) {};");
+      assertNull(Classes.invoke(cache, "get", jsFiles.get(0)));
+      put(cache, jsFiles.get(0), 0);
+      for(int i = 1; i < jsFiles.size(); ++i) {
+        assertNotNull(Classes.invoke(cache, "get", jsFiles.get(i)));
+      }
+      List<?> staleFiles = Classes.invoke(cache, "getStaleFiles", jsFiles);
+      assertEquals(2, staleFiles.size());
+      assertEquals(jsFiles.get(1), staleFiles.get(0));
+      assertEquals(jsFiles.get(2), staleFiles.get(1));
+    }
+    finally {
+      cacheFile.delete();
+      for(File jsFile : jsFiles) {
+        jsFile.delete();
+      }
+    }
+  }
+
+  public void testProjectCacheStaleSuperClass() throws Throwable
+  {
+    File sourcepath = Files.createTempDirectory("lint").toFile();
+    File cacheFile = File.createTempFile("lint", ".cache");
+    cacheFile.delete();
+    try {
+      File classFile = new File(sourcepath, "comp/prj/A.js");
+      File linkFile = new File(sourcepath, "comp/prj/B.js");
+      classFile.getParentFile().mkdirs();
+      write(classFile, "$package('comp.prj');\n/** @constructor */\ncomp.prj.A = function() {\n};\n");
+      write(linkFile, "$package('comp.prj');\n$extends(comp.prj.A, js.lang.Object);\n");
+
+      Config config = Classes.newInstance("js.tools.lint.Config");
+      Classes.setFieldValue(config, "sourcepath", sourcepath);
+      Classes.setFieldValue(config, "excludes", Collections.emptyList());
+      Classes.setFieldValue(config, "cache", cacheFile);
+      Classes.setFieldValue(config, "project", true);
+      MockLog log = new MockLog();
+      Classes.invoke(Classes.newInstance("js.tools.lint.Lint", config, log), "scan");
+      assertFalse(log.messages.contains("Missing super class."));
+
+      // nothing changed: no declaration pass and cache file is not written
+      long cacheTime = cacheFile.lastModified() - 10000;
+      cacheFile.setLastModified(cacheTime);
+      Object lint = Classes.newInstance("js.tools.lint.Lint", config, new MockLog());
+      Classes.invoke(lint, "scan");
+      assertNull(Classes.getFieldValue(lint, "registry"));
+      assertEquals(cacheTime, cacheFile.lastModified());
+
+      // superclass link removed from the other file; cached class file warnings are stale
+      write(linkFile, "$package('comp.prj');\n");
+      linkFile.setLastModified(linkFile.lastModified() + 2000);
+      log = new MockLog();
+      Classes.invoke(Classes.newInstance("js.tools.lint.Lint", config, log), "scan");
+      assertTrue(log.messages.contains("Missing super class."));
+    }
+    finally {
+      cacheFile.delete();
+      delete(sourcepath);
+    }
+  }
+
+  public void testProjectReindex() throws Throwable
+  {
+    File sourcepath = Files.createTempDirectory("lint").toFile();
+    File cacheFile = File.createTempFile("lint", ".cache");
+    cacheFile.delete();
+    try {
+      File classFile = new File(sourcepath, "comp/prj/A.js");
+      File linkFile = new File(sourcepath, "comp/prj/B.js");
+      File otherFile = new File(sourcepath, "comp/prj/C.js");
+      classFile.getParentFile().mkdirs();
+      write(classFile, "$package('comp.prj');\n/** @constructor */\ncomp.prj.A = function() {\n};\n");
+      write(linkFile, "$package('comp.prj');\n$extends(comp.prj.A, js.lang.Object);\n");
+      write(otherFile, "$package('comp.prj');\n/** @constructor */\ncomp.prj.C = function() {\n};\n$extends(comp.prj.C, js.lang.Object);\n");
+
+      Config config = Classes.newInstance("js.tools.lint.Config");
+      Classes.setFieldValue(config, "sourcepath", sourcepath);
+      Classes.setFieldValue(config, "excludes", Collections.emptyList());
+      Classes.setFieldValue(config, "cache", cacheFile);
+      Classes.setFieldValue(config, "project", true);
+      MockLog log = new MockLog();
+      Object lint = Classes.newInstance("js.tools.lint.Lint", config, log);
+      Classes.invoke(lint, "scan");
+      assertFalse(log.messages.contains("Missing super class."));
+
+      // declarations not changed, no dependent file to lint again
+      write(linkFile, "$package('comp.prj');\n$extends(comp.prj.A, js.lang.Object);\nvar x = 0;\n");
+      Object files = Classes.invoke(lint, "reindex", Collections.singleton(linkFile));
+      assertEquals(Collections.emptyList(), files);
+
+      // superclass link removed; class file depends on it, other file does not
+      write(linkFile, "$package('comp.prj');\n");
+      files = Classes.invoke(lint, "reindex", Collections.singleton(linkFile));
+      assertEquals(Collections.singletonList(classFile.getAbsoluteFile()), files);
+      Classes.invoke(lint, "lint", classFile);
+      assertTrue(log.messages.contains("Missing super class."));
+    }
+    finally {
+      cacheFile.delete();
+      delete(sourcepath);
+    }
+  }
+
+  public void testSourceDiscovery() throws Throwable
+  {
+    File sourcepath = Files.createTempDirectory("lint").toFile();
+    try {
+      new File(sourcepath, "comp/prj/.hidden").mkdirs();
+      new File(sourcepath, "comp/excluded").mkdirs();
+      write(new File(sourcepath, "comp/prj/Class.js"), "");
+      write(new File(sourcepath, "comp/prj/package-info.js"), "");
+      write(new File(sourcepath, "comp/prj/notes.txt"), "");
+      write(new File(sourcepath, "comp/prj/.hidden/Hidden.js"), "");
+      write(new File(sourcepath, "comp/excluded/Excluded.js"), "");
+      // symbolic link back to source path should not loop forever
+      Files.createSymbolicLink(new File(sourcepath, "comp/prj/loop").toPath(), sourcepath.toPath());
+
+      Config config = Classes.newInstance("js.tools.lint.Config");
+      Classes.setFieldValue(config, "sourcepath", sourcepath);
+      Classes.setFieldValue(config, "excludes", Collections.singletonList("comp.excluded"));
+      List<?> files = Classes.invoke(new Lint(config), "collectFiles");
+      assertEquals(1, files.size());
+      assertEquals(new File(sourcepath, "comp/prj/Class.js"), files.get(0));
+    }
+    finally {
+      delete(sourcepath);
+    }
+  }
+
+  private static void delete(File file)
+  {
+    // do not follow symbolic links
+    if(!Files.isSymbolicLink(file.toPath()) && file.isDirectory()) {
+      for(File child : file.listFiles()) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  private static void put(Object cache, File jsFile, int index) throws Throwable
+  {
+    Object dependencies = Classes.newInstance("js.tools.lint.Dependencies");
+    Classes.invoke(dependencies, "declareClass", DEPENDENCIES[index][0]);
+    Classes.invoke(dependencies, "referenceClass", DEPENDENCIES[index][1]);
+    Classes.invoke(cache, "put", jsFile, Classes.newInstance("js.tools.lint.RecordingLog"), dependencies);
+  }
+
+  private static void write(File file, String content) throws IOException
+  {
+    Writer writer = new FileWriter(file);
+    try {
+      writer.write(content);
+    }
+    finally {
+      writer.close();
+    }
+  }
 }
@@ -122,12 +122,30 @@ public class JsParserUnitTests extends TestCase
     assertEquals("Bad function definition.", this.log.messages.get(0));
   }
 
-  private void run(String testName)
+  public void testVariableScope()
+  {
+    run("variable-scope");
+    assertEquals(2, this.log.messages.size());
+    assertEquals("Return type does not match declaration.", this.log.messages.get(0));
+    assertEquals("Missing variable declaration.", this.log.messages.get(1));
+  }
+
+  public void testParserReuse()
+  {
+    // package, suppressed warnings and declared classes should not leak from a file to the next one
+    run("valid-return", "missing-package", "valid-return");
+    assertEquals(1, this.log.messages.size());
+    assertEquals("Missing package definition.", this.log.messages.get(0));
+  }
+
+  private void run(String... testNames)
   {
     try {
       Object jsParser = Classes.newInstance("js.tools.lint.JsParser");
       Classes.invoke(jsParser, "setLogger", this.log);
-      Classes.invoke(jsParser, "parse", new File("src/js/tools/lint/test/" + testName + ".js"));
+      for(String testName : testNames) {
+        Classes.invoke(jsParser, "parse", new File("src/js/tools/lint/test/" + testName + ".js"));
+      }
     }
     catch(Throwable e) {
       throw new RuntimeException(e);
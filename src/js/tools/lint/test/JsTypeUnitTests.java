@@ -1,5 +1,7 @@
 package js.tools.lint.test;
 
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
 import java.util.Map;
 
 import js.tools.commons.util.Classes;
@@ -60,7 +62,7 @@ public class JsTypeUnitTests extends TestCase
   {
     JsType t1 = new JsType();
     JsType t2 = new JsType();
-    assertTrue(t1.isKindOf(t2));
+    assertTrue(isKindOf(t1, t2));
 
     for(String t : this.types) {
       assertIsKindOf(t, t);
@@ -71,29 +73,32 @@ public class JsTypeUnitTests extends TestCase
     assertIsKindOf("String", "Boolean");
     assertIsKindOf("Number", "Boolean");
 
-    Class<?> jsClassClass = Class.forName("js.tools.lint.JsClass");
-    Map<?, ?> jsClasses = Classes.getFieldValue(jsClassClass, "jsClasses");
-    jsClasses.clear();
-
-    Object gradFather = Classes.invoke(jsClassClass, "forName", "comp.prj.GrandFather");
-    Object father = Classes.invoke(jsClassClass, "forName", "comp.prj.Father");
-    Object son = Classes.invoke(jsClassClass, "forName", "comp.prj.Son");
+    Object symbols = Classes.newInstance("js.tools.lint.SymbolTable");
+    Object gradFather = Classes.invoke(symbols, "getJsClass", "comp.prj.GrandFather");
+    Object father = Classes.invoke(symbols, "getJsClass", "comp.prj.Father");
+    Object son = Classes.invoke(symbols, "getJsClass", "comp.prj.Son");
     Classes.invoke(father, "setSuperClass", gradFather);
     Classes.invoke(son, "setSuperClass", father);
 
     t1 = new JsType("comp.prj.GrandFather");
     t2 = new JsType("comp.prj.Father");
     JsType t3 = new JsType("comp.prj.Son");
-    assertTrue(t3.isKindOf(t1));
-    assertTrue(t3.isKindOf(t2));
-    assertTrue(t2.isKindOf(t1));
+    assertTrue((Boolean)Classes.invoke(t3, "isKindOf", t1, symbols));
+    assertTrue((Boolean)Classes.invoke(t3, "isKindOf", t2, symbols));
+    assertTrue((Boolean)Classes.invoke(t2, "isKindOf", t1, symbols));
   }
 
-  private static void assertIsKindOf(String value1, String value2)
+  private static void assertIsKindOf(String value1, String value2) throws Throwable
   {
     JsType type1 = new JsType(value1);
     JsType type2 = new JsType(value2);
-    assertTrue(type1.isKindOf(type2));
+    assertTrue(isKindOf(type1, type2));
+  }
+
+  private static boolean isKindOf(JsType type1, JsType type2) throws Throwable
+  {
+    Object symbols = Classes.newInstance("js.tools.lint.SymbolTable");
+    return (Boolean)Classes.invoke(type1, "isKindOf", type2, symbols);
   }
 
   public void testIsVoid()
@@ -109,47 +114,116 @@ public class JsTypeUnitTests extends TestCase
   public void testCanCastTo() throws Throwable
   {
     JsType t1 = new JsType();
-    assertTrue(t1.canCastTo(t1));
+    assertTrue(canCastTo(t1, t1));
     JsType t2 = new JsType();
     assertTrue(t1.equals(t2));
 
     for(String t : this.types) {
       t1 = new JsType(t);
       t2 = new JsType(t);
-      assertTrue(t1.canCastTo(t2));
+      assertTrue(canCastTo(t1, t2));
     }
     assertCanCastTo("Null", "Boolean");
     assertCanCastTo("String", "Boolean");
     assertCanCastTo("Number", "Boolean");
 
-    Class<?> jsClassClass = Class.forName("js.tools.lint.JsClass");
-    Map<?, ?> jsClasses = Classes.getFieldValue(jsClassClass, "jsClasses");
-    jsClasses.clear();
-
-    Object gradFather = Classes.invoke(jsClassClass, "forName", "comp.prj.GrandFather");
-    Object father = Classes.invoke(jsClassClass, "forName", "comp.prj.Father");
-    Object son = Classes.invoke(jsClassClass, "forName", "comp.prj.Son");
+    Object symbols = Classes.newInstance("js.tools.lint.SymbolTable");
+    Object gradFather = Classes.invoke(symbols, "getJsClass", "comp.prj.GrandFather");
+    Object father = Classes.invoke(symbols, "getJsClass", "comp.prj.Father");
+    Object son = Classes.invoke(symbols, "getJsClass", "comp.prj.Son");
     t1 = new JsType("comp.prj.GrandFather");
     t2 = new JsType("comp.prj.Father");
     JsType t3 = new JsType("comp.prj.Son");
-    assertFalse(t3.canCastTo(t1));
-    assertFalse(t2.canCastTo(t1));
+    assertFalse((Boolean)Classes.invoke(t3, "canCastTo", t1, symbols));
+    assertFalse((Boolean)Classes.invoke(t2, "canCastTo", t1, symbols));
 
     Classes.invoke(father, "setSuperClass", gradFather);
     Classes.invoke(son, "setSuperClass", father);
-    assertTrue(t3.canCastTo(t1));
-    assertTrue(t3.canCastTo(t2));
-    assertTrue(t2.canCastTo(t1));
-    assertFalse(t1.canCastTo(t2));
-    assertFalse(t1.canCastTo(t3));
-    assertFalse(t2.canCastTo(t3));
+    assertTrue((Boolean)Classes.invoke(t3, "canCastTo", t1, symbols));
+    assertTrue((Boolean)Classes.invoke(t3, "canCastTo", t2, symbols));
+    assertTrue((Boolean)Classes.invoke(t2, "canCastTo", t1, symbols));
+    assertFalse((Boolean)Classes.invoke(t1, "canCastTo", t2, symbols));
+    assertFalse((Boolean)Classes.invoke(t1, "canCastTo", t3, symbols));
+    assertFalse((Boolean)Classes.invoke(t2, "canCastTo", t3, symbols));
+  }
+
+  public void testCanCastToAfterRelink() throws Throwable
+  {
+    Object symbols = Classes.newInstance("js.tools.lint.SymbolTable");
+    Object gradFather = Classes.invoke(symbols, "getJsClass", "comp.prj.GrandFather");
+    Object father = Classes.invoke(symbols, "getJsClass", "comp.prj.Father");
+    Object son = Classes.invoke(symbols, "getJsClass", "comp.prj.Son");
+    Object uncle = Classes.invoke(symbols, "getJsClass", "comp.prj.Uncle");
+    JsType t1 = new JsType("comp.prj.GrandFather");
+    JsType t2 = new JsType("comp.prj.Father");
+    JsType t3 = new JsType("comp.prj.Son");
+    JsType t4 = new JsType("comp.prj.Uncle");
+
+    // link subclass first; ancestors should propagate when father is linked later
+    Classes.invoke(son, "setSuperClass", father);
+    Classes.invoke(father, "setSuperClass", gradFather);
+    assertTrue((Boolean)Classes.invoke(t3, "canCastTo", t1, symbols));
+
+    Classes.invoke(father, "setSuperClass", uncle);
+    assertFalse((Boolean)Classes.invoke(t3, "canCastTo", t1, symbols));
+    assertFalse((Boolean)Classes.invoke(t2, "canCastTo", t1, symbols));
+    assertTrue((Boolean)Classes.invoke(t3, "canCastTo", t4, symbols));
+    assertTrue((Boolean)Classes.invoke(t3, "canCastTo", t2, symbols));
   }
 
-  private static void assertCanCastTo(String value1, String value2)
+  private static void assertCanCastTo(String value1, String value2) throws Throwable
   {
     JsType type1 = new JsType(value1);
     JsType type2 = new JsType(value2);
-    assertTrue(type1.canCastTo(type2));
+    assertTrue(canCastTo(type1, type2));
+  }
+
+  private static boolean canCastTo(JsType type1, JsType type2) throws Throwable
+  {
+    Object symbols = Classes.newInstance("js.tools.lint.SymbolTable");
+    return (Boolean)Classes.invoke(type1, "canCastTo", type2, symbols);
+  }
+
+  public void testGetInstance()
+  {
+    assertSame(JsType.getInstance((String)null), JsType.getInstance((String)null));
+    assertTrue(JsType.getInstance((String)null).isVoid());
+    for(String t : this.types) {
+      assertSame(t, JsType.getInstance(t), JsType.getInstance(t));
+    }
+
+    JsType t1 = JsType.getInstance("comp.net.Class1");
+    assertSame(t1, JsType.getInstance("comp.net.Class1"));
+    assertSame(t1, JsType.getInstance(new String("comp.net.Class1")));
+    JsType t2 = JsType.getInstance("comp.net.Class2");
+    assertNotSame(t1, t2);
+    assertFalse(t1.equals(t2));
+    assertFalse(t1.equals(JsType.getInstance("Number")));
+  }
+
+  public void testClearedClassesPurge() throws Exception
+  {
+    Field field = JsType.class.getDeclaredField("classes");
+    field.setAccessible(true);
+    Map<?, ?> classes = (Map<?, ?>)field.get(null);
+
+    String typeName = "comp.net.Collected" + System.nanoTime();
+    WeakReference<JsType> reference = new WeakReference<JsType>(JsType.getInstance(typeName));
+    assertTrue(classes.containsKey(typeName));
+    // interning another class purges entries cleared by garbage collector
+    for(int i = 0; i < 500 && classes.containsKey(typeName); ++i) {
+      System.gc();
+      Thread.sleep(10);
+      JsType.getInstance("comp.net.Trigger" + i);
+    }
+    assertNull(reference.get());
+    assertFalse(classes.containsKey(typeName));
+
+    // class name is interned again, to a live instance
+    JsType jsType = JsType.getInstance(typeName);
+    assertEquals(typeName, Classes.getFieldValue(jsType, "value"));
+    assertSame(jsType, JsType.getInstance(typeName));
+    assertTrue(classes.containsKey(typeName));
   }
 
   public void testEqualsObject()
@@ -0,0 +1,99 @@
+package js.tools.lint.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import js.tools.lint.NameKind;
+
+/**
+ * Compare hand written name classifier with regular expressions it replaces. Every generated name is first checked for
+ * identical classification, then both paths are timed on the same names set. Run it as a standalone program; it is not
+ * a unit test since timings depend on host.
+ */
+public class NameKindBenchmark
+{
+  private static final Pattern QUALIFIED_NAME_PATTERN = Pattern
+      .compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*\\.[A-Z][a-zA-Z0-9_]*(?:\\.(?:[a-z_][a-zA-Z0-9_]*)|(?:[A-Z0-9_]+))?$");
+  private static final Pattern CLASS_NAME_PATTERN = Pattern.compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(\\.[A-Z][a-zA-Z0-9_]*)+$");
+  private static final Pattern PROTOTYPE_PATTERN = Pattern.compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(\\.[A-Z][a-zA-Z0-9_]*)+\\.prototype$");
+  private static final Pattern PROTOTYPE_MEMBER_PATTERN = Pattern
+      .compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(\\.[A-Z][a-zA-Z0-9_]*)+\\.prototype\\.[a-z_][a-zA-Z0-9_]*$");
+  private static final Pattern CONSTANT_NAME_PATTERN = Pattern.compile("^(?:[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(?:\\.[A-Z][a-zA-Z0-9_]*)+\\.)?[A-Z0-9_]+$");
+  private static final Pattern STATIC_MEMBER_NAME_PATTERN = Pattern
+      .compile("^[a-z][a-z0-9]*(?:\\.[a-z][a-z0-9]+)*(?:\\.[A-Z][a-zA-Z0-9_]*)+(?:\\.(?:(?:[a-z_][a-zA-Z0-9_]*)|(?:[A-Z0-9_]+)))$");
+
+  private static final String[] SEGMENTS = new String[]
+  {
+      "comp", "js", "prj", "a", "ab", "x1", "Class", "InnerClass", "CLASS", "C", "Inner_2", "prototype", "field", "_private",
+      "CONSTANT", "_PRIVATE_CONSTANT", "X1", "123", "", "aB", "a_b"
+  };
+
+  private static final int ROUNDS = 20;
+
+  public static void main(String[] args)
+  {
+    List<String> names = generateNames(200000, new Random(1964));
+    for(String name : names) {
+      int expected = regexKind(name);
+      int actual = NameKind.classify(name) & 0xFF;
+      if(expected != actual) {
+        throw new IllegalStateException(String.format("Classification mismatch for [%s]: expected %x, actual %x.", name, expected, actual));
+      }
+    }
+    System.out.println(String.format("%d names classified identically.", names.size()));
+
+    long regexTime = Long.MAX_VALUE;
+    long classifierTime = Long.MAX_VALUE;
+    int sink = 0;
+    for(int i = 0; i < ROUNDS; ++i) {
+      long start = System.nanoTime();
+      for(String name : names) {
+        sink += regexKind(name);
+      }
+      regexTime = Math.min(regexTime, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for(String name : names) {
+        sink += NameKind.classify(name);
+      }
+      classifierTime = Math.min(classifierTime, System.nanoTime() - start);
+    }
+
+    System.out.println(String.format("regex:      %6.1f ns/name", (double)regexTime / names.size()));
+    System.out.println(String.format("classifier: %6.1f ns/name", (double)classifierTime / names.size()));
+    System.out.println(String.format("speedup:    %6.1fx (%d)", (double)regexTime / classifierTime, sink & 1));
+  }
+
+  /**
+   * Classify name using regular expressions, the same way it was done by handlers that tested name against all patterns.
+   */
+  private static int regexKind(String name)
+  {
+    int kind = 0;
+    if(QUALIFIED_NAME_PATTERN.matcher(name).find()) kind |= NameKind.QUALIFIED;
+    if(CLASS_NAME_PATTERN.matcher(name).find()) kind |= NameKind.CLASS;
+    if(PROTOTYPE_PATTERN.matcher(name).find()) kind |= NameKind.PROTOTYPE;
+    if(PROTOTYPE_MEMBER_PATTERN.matcher(name).find()) kind |= NameKind.PROTOTYPE_MEMBER;
+    if(STATIC_MEMBER_NAME_PATTERN.matcher(name).find()) kind |= NameKind.STATIC_MEMBER;
+    if(CONSTANT_NAME_PATTERN.matcher(name).find()) kind |= NameKind.CONSTANT;
+    return kind;
+  }
+
+  private static List<String> generateNames(int count, Random random)
+  {
+    List<String> names = new ArrayList<String>(count);
+    StringBuilder builder = new StringBuilder();
+    for(int i = 0; i < count; ++i) {
+      builder.setLength(0);
+      int segments = 1 + random.nextInt(6);
+      for(int j = 0; j < segments; ++j) {
+        if(j > 0) builder.append('.');
+        builder.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+      }
+      names.add(builder.toString());
+    }
+    return names;
+  }
+}
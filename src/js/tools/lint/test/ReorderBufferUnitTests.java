@@ -0,0 +1,136 @@
+package js.tools.lint.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import js.tools.commons.util.Classes;
+import junit.framework.TestCase;
+
+public class ReorderBufferUnitTests extends TestCase
+{
+  public void testOrder() throws Throwable
+  {
+    Object buffer = Classes.newInstance("js.tools.lint.ReorderBuffer", 4);
+    for(int i = 0; i < 3; ++i) {
+      assertEquals((long)i, (long)(Long)Classes.invoke(buffer, "reserve"));
+    }
+    complete(buffer, 2, "c");
+    complete(buffer, 1, "b");
+    complete(buffer, 0, "a");
+    Classes.invoke(buffer, "close");
+    assertEquals("a", Classes.invoke(buffer, "take"));
+    assertEquals("b", Classes.invoke(buffer, "take"));
+    assertEquals("c", Classes.invoke(buffer, "take"));
+    assertNull(Classes.invoke(buffer, "take"));
+  }
+
+  public void testBound() throws Throwable
+  {
+    final Object buffer = Classes.newInstance("js.tools.lint.ReorderBuffer", 2);
+    Classes.invoke(buffer, "reserve");
+    Classes.invoke(buffer, "reserve");
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> reservation = executor.submit(new Callable<Object>()
+      {
+        @Override
+        public Object call() throws Exception
+        {
+          return Classes.invoke(buffer, "reserve");
+        }
+      });
+      // buffer is full till first result is taken, even if second one is completed
+      complete(buffer, 1, "b");
+      try {
+        reservation.get(200, TimeUnit.MILLISECONDS);
+        fail("Reservation on full buffer should block.");
+      }
+      catch(TimeoutException expected) {}
+      complete(buffer, 0, "a");
+      assertEquals("a", Classes.invoke(buffer, "take"));
+      assertEquals(2L, reservation.get(5, TimeUnit.SECONDS));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public void testConcurrentCompletion() throws Throwable
+  {
+    final Object buffer = Classes.newInstance("js.tools.lint.ReorderBuffer", 8);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      executor.submit(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          // producer reserves and hands tasks to workers that complete them in random order
+          final ExecutorService workers = Executors.newFixedThreadPool(4);
+          try {
+            for(int i = 0; i < 1000; ++i) {
+              final Object sequence = Classes.invoke(buffer, "reserve");
+              workers.submit(new Runnable()
+              {
+                @Override
+                public void run()
+                {
+                  try {
+                    Thread.sleep((Long)sequence % 3);
+                    complete(buffer, (Long)sequence, sequence.toString());
+                  }
+                  catch(Throwable e) {
+                    throw new RuntimeException(e);
+                  }
+                }
+              });
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+            Classes.invoke(buffer, "close");
+          }
+          catch(Throwable e) {
+            throw new RuntimeException(e);
+          }
+        }
+      });
+
+      List<String> results = new ArrayList<String>();
+      for(String result; (result = Classes.invoke(buffer, "take")) != null;) {
+        results.add(result);
+      }
+      assertEquals(1000, results.size());
+      List<String> expected = new ArrayList<String>(results);
+      Collections.sort(expected, new Comparator<String>()
+      {
+        @Override
+        public int compare(String left, String right)
+        {
+          return Integer.parseInt(left) - Integer.parseInt(right);
+        }
+      });
+      assertEquals(expected, results);
+      assertEquals("0", results.get(0));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void complete(Object buffer, long sequence, String result) throws Throwable
+  {
+    Object[] arguments = new Object[]
+    {
+        sequence, result
+    };
+    Classes.invoke(buffer, "complete", arguments);
+  }
+}
@@ -1,44 +1,71 @@
 package js.tools.lint.test;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import js.tools.commons.util.Classes;
+import js.tools.lint.NameKind;
 import junit.framework.TestCase;
 
 public class UtilsUnitTests extends TestCase
 {
-  private static boolean execPattern(String patternName, String input) throws Exception
+  private static boolean exec(String methodName, String input) throws Exception
   {
     Class<?> utilsClass = Class.forName("js.tools.lint.Utils");
-    Pattern p = Classes.getFieldValue(utilsClass, patternName);
-    Matcher m = p.matcher(input);
-    return m.find();
+    return (Boolean)Classes.invoke(utilsClass, methodName, input);
   }
 
   public void testConstantNamePattern() throws Exception
   {
-    assertTrue(execPattern("constantNamePattern", "CONSTANT"));
-    assertTrue(execPattern("constantNamePattern", "CONSTANT2"));
-    assertTrue(execPattern("constantNamePattern", "_PRIVATE_CONSTANT"));
-    assertFalse(execPattern("constantNamePattern", "field"));
+    assertTrue(exec("isConstantName", "CONSTANT"));
+    assertTrue(exec("isConstantName", "CONSTANT2"));
+    assertTrue(exec("isConstantName", "_PRIVATE_CONSTANT"));
+    assertFalse(exec("isConstantName", "field"));
   }
 
   public void testClassMemberNamePattern() throws Exception
   {
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class.field"));
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class._privateField"));
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class.InnerClass.field"));
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class.InnerClass._privateField"));
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class.CONSTANT"));
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class._PRIVATE_CONSTANT"));
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class.InnerClass.CONSTANT"));
-    assertTrue(execPattern("classMemberNamePattern", "comp.prj.Class.InnerClass._PRIVATE_CONSTANT"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.field"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class._privateField"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.InnerClass.field"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.InnerClass._privateField"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.CONSTANT"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class._PRIVATE_CONSTANT"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.InnerClass.CONSTANT"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.InnerClass._PRIVATE_CONSTANT"));
+
+    assertFalse(exec("isStaticMemberName", "comp.prj"));
+    assertFalse(exec("isStaticMemberName", "comp.prj.Class"));
+    assertFalse(exec("isStaticMemberName", "comp.prj.CLASS"));
+    assertFalse(exec("isStaticMemberName", "comp.prj.Class.InnerClass"));
+  }
+
+  public void testNameKind()
+  {
+    NameKind kind = new NameKind();
+    kind.scan("comp.prj.Class.InnerClass.staticMember");
+    assertTrue(kind.isStaticMember());
+    assertFalse(kind.isClass());
+    assertEquals("comp.prj.Class.InnerClass", kind.getClassName());
+    assertEquals("staticMember", kind.getMemberName());
+
+    kind.scan("comp.prj.Class.CONSTANT");
+    assertTrue(kind.isClass());
+    assertTrue(kind.isStaticMember());
+    assertTrue(kind.isConstant());
+    assertEquals("comp.prj.Class", kind.getClassName());
+    assertEquals("CONSTANT", kind.getMemberName());
+
+    kind.scan("comp.prj.Class.prototype");
+    assertTrue(kind.isPrototype());
+    assertEquals("comp.prj.Class", kind.getClassName());
 
-    assertFalse(execPattern("classMemberNamePattern", "comp.prj"));
-    assertFalse(execPattern("classMemberNamePattern", "comp.prj.Class"));
-    assertFalse(execPattern("classMemberNamePattern", "comp.prj.CLASS"));
-    assertFalse(execPattern("classMemberNamePattern", "comp.prj.Class.InnerClass"));
+    kind.scan("comp.prj.Class.InnerClass.prototype.method");
+    assertTrue(kind.isPrototypeMember());
+    assertFalse(kind.isStaticMember());
+    assertEquals("comp.prj.Class.InnerClass", kind.getClassName());
+    assertEquals("method", kind.getMemberName());
+
+    assertEquals(0, NameKind.classify(""));
+    assertEquals(0, NameKind.classify("comp..Class"));
+    assertEquals(0, NameKind.classify("comp.prj.Class."));
   }
 
   public void testGetName()
@@ -46,34 +73,57 @@ public class UtilsUnitTests extends TestCase
     fail("Not yet implemented");
   }
 
-  public void testIsQualifiedName()
+  public void testIsQualifiedName() throws Exception
   {
-    fail("Not yet implemented");
+    assertTrue(exec("isQualifiedName", "comp.prj.Class"));
+    assertTrue(exec("isQualifiedName", "comp.prj.Class.field"));
+    assertFalse(exec("isQualifiedName", "comp.prj.Class.InnerClass"));
+    assertFalse(exec("isQualifiedName", "comp.prj.Class.CONSTANT"));
+    assertFalse(exec("isQualifiedName", "comp.prj"));
   }
 
-  public void testIsClassName()
+  public void testIsClassName() throws Exception
   {
-    fail("Not yet implemented");
+    assertTrue(exec("isClassName", "comp.prj.Class"));
+    assertTrue(exec("isClassName", "comp.prj.CLASS"));
+    assertTrue(exec("isClassName", "comp.prj.Class.InnerClass"));
+    assertTrue(exec("isClassName", "c.Class"));
+    assertFalse(exec("isClassName", "comp.p.Class"));
+    assertFalse(exec("isClassName", "Class"));
+    assertFalse(exec("isClassName", "comp.prj.Class.field"));
+    assertFalse(exec("isClassName", "comp.prj.Class.prototype"));
   }
 
-  public void testIsClassPrototype()
+  public void testIsClassPrototype() throws Exception
   {
-    fail("Not yet implemented");
+    assertTrue(exec("isPrototype", "comp.prj.Class.prototype"));
+    assertTrue(exec("isPrototype", "comp.prj.Class.InnerClass.prototype"));
+    assertFalse(exec("isPrototype", "comp.prj.prototype"));
+    assertFalse(exec("isPrototype", "comp.prj.Class.prototype.method"));
   }
 
-  public void testIsPrototypeMethod()
+  public void testIsPrototypeMethod() throws Exception
   {
-    fail("Not yet implemented");
+    assertTrue(exec("isPrototypeMember", "comp.prj.Class.prototype.method"));
+    assertTrue(exec("isPrototypeMember", "comp.prj.Class.InnerClass.prototype._privateMethod"));
+    assertFalse(exec("isPrototypeMember", "comp.prj.Class.prototype"));
+    assertFalse(exec("isPrototypeMember", "comp.prj.Class.prototype.Method"));
   }
 
-  public void testIsClassMemberName()
+  public void testIsClassMemberName() throws Exception
   {
-    fail("Not yet implemented");
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.staticMember"));
+    assertTrue(exec("isStaticMemberName", "comp.prj.Class.InnerClass.CONSTANT"));
+    assertFalse(exec("isStaticMemberName", "comp.prj.Class.prototype.method"));
   }
 
-  public void testIsConstantName()
+  public void testIsConstantName() throws Exception
   {
-    fail("Not yet implemented");
+    assertTrue(exec("isConstantName", "CONSTANT"));
+    assertTrue(exec("isConstantName", "comp.prj.Class.CONSTANT"));
+    assertTrue(exec("isConstantName", "comp.prj.Class.InnerClass._PRIVATE_CONSTANT"));
+    assertFalse(exec("isConstantName", "comp.prj.CLASS"));
+    assertFalse(exec("isConstantName", "comp.prj.Class.field"));
   }
 
   public void testGetScope()